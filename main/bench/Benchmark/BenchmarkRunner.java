@@ -0,0 +1,28 @@
+package Benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 默认运行 Benchmark 包下的全部基准测试，同时报告吞吐量与 GC 分配速率；
+ * 命令行参数遵循 JMH 规范，可覆盖默认配置（例如 -p logsPerDevice=100 只运行指定参数）
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        // 命令行未指定要运行的基准时，默认运行全部
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("Benchmark\\..*Benchmark");
+        }
+        Options options = builder
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,124 @@
+package Benchmark;
+
+import AutomatedWorkflow.AutomationScene;
+import AutomatedWorkflow.DeviceAction;
+import DeviceEquipment.Device;
+import DeviceEquipment.Manufacturer;
+import EmissionReduction.RunningLog;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Date;
+
+/**
+ * 基准测试公共工具类
+ * 负责按参数构造家庭、房间、设备及运行日志，并屏蔽控制台输出
+ */
+public final class BenchmarkSupport {
+    // 日志起始时间：2025-01-01 00:00:00 (UTC+8)
+    public static final long BASE_TIME = 1735660800000L;
+    // 相邻两条运行日志之间的时间间隔：30分钟
+    public static final long LOG_INTERVAL = 30 * 60 * 1000L;
+
+    private static final String[] DEVICE_TYPES = {"AirConditioner", "LightBulb", "SmartLock", "BathroomScale"};
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 将 System.out 重定向到空输出流，避免控制台输出干扰测量结果
+     */
+    public static void silenceConsole() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    /**
+     * 构造一个用于基准测试的家庭
+     * 设备类型按空调、灯泡、智能锁、体重秤轮流分配，设备ID在家庭内从1开始连续编号
+     *
+     * @param householdId 家庭ID
+     * @param rooms 房间数量
+     * @param devicesPerRoom 每个房间的设备数量
+     * @param logsPerDevice 每个设备的运行日志数量
+     * @return 构造完成的家庭对象
+     */
+    public static Household buildHousehold(int householdId, int rooms, int devicesPerRoom, int logsPerDevice) {
+        Manufacturer manufacturer = new Manufacturer(householdId, "Bench", "Wi-Fi");
+        Household household = new Household(householdId, "bench-" + householdId);
+        int deviceId = 1;
+        for (int r = 1; r <= rooms; r++) {
+            Room room = new Room(r, "room-" + r, 20);
+            for (int d = 0; d < devicesPerRoom; d++) {
+                String type = DEVICE_TYPES[(deviceId - 1) % DEVICE_TYPES.length];
+                Device device = manufacturer.createDevice(deviceId, type + "-" + deviceId, type);
+                appendPowerCycles(device, logsPerDevice);
+                room.addDevice(device);
+                deviceId++;
+            }
+            household.addRoom(room);
+        }
+        return household;
+    }
+
+    /**
+     * 为设备追加交替的开关机日志
+     * @param device 设备
+     * @param count 日志条数
+     */
+    public static void appendPowerCycles(Device device, int count) {
+        for (int i = 0; i < count; i++) {
+            String event = (i % 2 == 0) ? "powerOn" : "powerOff";
+            device.addRunningLog(new RunningLog(new Date(BASE_TIME + i * LOG_INTERVAL), event, RunningLog.Type.INFO, ""));
+        }
+    }
+
+    /**
+     * 获取覆盖全部运行日志的查询结束时间
+     * @param logsPerDevice 每个设备的运行日志数量
+     * @return 查询结束时间
+     */
+    public static Date endOfLogs(int logsPerDevice) {
+        return new Date(BASE_TIME + (logsPerDevice + 1) * LOG_INTERVAL);
+    }
+
+    /**
+     * 构造一个包含若干设备命令的场景，命令依次作用于家庭中的前几个设备
+     * @param household 家庭
+     * @param sceneId 场景ID
+     * @param commandCount 命令数量
+     * @return 场景对象
+     */
+    public static AutomationScene buildScene(Household household, int sceneId, int commandCount) {
+        return buildScene(household, sceneId, commandCount, false);
+    }
+
+    /**
+     * 构造一个包含若干设备命令的场景，命令依次作用于家庭中的前几个设备
+     * 反向场景对每个设备执行相反的电源命令，与正向场景交替执行时每条命令都会改变设备状态
+     * @param household 家庭
+     * @param sceneId 场景ID
+     * @param commandCount 命令数量
+     * @param inverted 是否构造反向场景
+     * @return 场景对象
+     */
+    public static AutomationScene buildScene(Household household, int sceneId, int commandCount, boolean inverted) {
+        AutomationScene scene = new AutomationScene(sceneId, "scene-" + sceneId, "benchmark");
+        int deviceCount = Math.max(1, household.listAllDevices().size());
+        for (int i = 0; i < commandCount; i++) {
+            Device device = household.findDeviceById(i % deviceCount + 1);
+            boolean powerOn = (i % 2 == 0) != inverted;
+            scene.addCommand(DeviceAction.createCommand(powerOn ? "powerOn" : "powerOff", device, null));
+        }
+        return scene;
+    }
+}
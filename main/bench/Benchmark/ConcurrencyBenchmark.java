@@ -0,0 +1,92 @@
+package Benchmark;
+
+import DeviceEquipment.Device;
+import DeviceEquipment.Manufacturer;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发访问压力测试
+ * 每个线程操作各自的家庭（读多写少：查找设备、读取日志，每 16 次操作增删一次设备），
+ * 不同家庭使用不同的锁，总吞吐量应随线程数近似线性增长；
+ * 另测量所有线程并发读取同一家庭的吞吐量，读锁之间互不阻塞。
+ * 使用 -t 指定线程数，例如 -t 1、-t 2、-t 4 分别运行后比较总吞吐量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConcurrencyBenchmark {
+    // 预先构造的家庭数量，不少于测试使用的线程数
+    private static final int HOUSEHOLDS = 64;
+    // 用于增删的设备ID，不与家庭中已有的设备重复
+    private static final int CHURN_DEVICE_ID = 1_000_000;
+
+    @Param({"64"})
+    public int devicesPerRoom;
+
+    private Household[] households;
+    private Household shared;
+    private int deviceCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceConsole();
+        households = new Household[HOUSEHOLDS];
+        for (int i = 0; i < HOUSEHOLDS; i++) {
+            households[i] = BenchmarkSupport.buildHousehold(i + 1, 4, devicesPerRoom, 16);
+        }
+        shared = households[0];
+        deviceCount = 4 * devicesPerRoom;
+    }
+
+    /**
+     * 线程私有状态，每个线程绑定一个家庭
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+        Household household;
+        Room churnRoom;
+        Device churnDevice;
+        int cursor;
+        int operations;
+
+        @Setup(Level.Trial)
+        public void setUp(ConcurrencyBenchmark benchmark, ThreadParams threads) {
+            household = benchmark.households[threads.getThreadIndex() % HOUSEHOLDS];
+            churnRoom = household.getRooms().get(0);
+            churnDevice = new Manufacturer(0, "Bench", "Wi-Fi")
+                    .createDevice(CHURN_DEVICE_ID, "churn", "LightBulb");
+        }
+    }
+
+    @Benchmark
+    public long ownHousehold(Worker worker) {
+        worker.cursor = (worker.cursor + 1) % deviceCount;
+        Device device = worker.household.findDeviceById(worker.cursor + 1);
+        long result = device.getRunningLogStore().timeAt(0);
+
+        // 每 16 次操作增删一次设备，持有家庭写锁
+        if ((++worker.operations & 15) == 0) {
+            if ((worker.operations & 16) != 0) {
+                worker.churnRoom.addDevice(worker.churnDevice);
+            } else {
+                worker.churnRoom.removeDevice(CHURN_DEVICE_ID);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long sharedHouseholdRead(Worker worker) {
+        worker.cursor = (worker.cursor + 1) % deviceCount;
+        Device device = shared.findDeviceById(worker.cursor + 1);
+        return device.getRunningLogStore().timeAt(0);
+    }
+}
@@ -0,0 +1,49 @@
+package Benchmark;
+
+import Common.DeviceLocation;
+import Common.HomeSphereSystem;
+import DeviceEquipment.Device;
+import UserAndHousehold.Household;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备查找基准测试
+ * 测量 Household.findDeviceById 与全局设备索引定位在不同设备规模下的吞吐量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeviceLookupBenchmark {
+    @Param({"4", "64", "1024"})
+    public int devicesPerRoom;
+
+    private Household household;
+    private int deviceCount;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.silenceConsole();
+        household = BenchmarkSupport.buildHousehold(1, 8, devicesPerRoom, 0);
+        deviceCount = household.listAllDevices().size();
+        HomeSphereSystem.getInstance().addHousehold(1, household);
+    }
+
+    @Benchmark
+    public Device findDeviceById() {
+        // 轮询所有设备ID，使命中位置均匀分布
+        cursor = (cursor + 1) % deviceCount;
+        return household.findDeviceById(cursor + 1);
+    }
+
+    @Benchmark
+    public DeviceLocation locateDevice() {
+        cursor = (cursor + 1) % deviceCount;
+        return HomeSphereSystem.getInstance().locateDevice(cursor + 1);
+    }
+}
@@ -0,0 +1,88 @@
+package Benchmark;
+
+import Common.HomeSphereSystem;
+import DeviceEquipment.AirConditioner;
+import DeviceEquipment.Device;
+import DeviceEquipment.LightBulb;
+import UserAndHousehold.Household;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 能耗报告基准测试
+ * 覆盖单设备的 getReport 以及家庭级别的 displayEnergyReportings
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EnergyReportBenchmark {
+    private static final int HOUSEHOLD_ID = 1001;
+
+    @Param({"4", "64"})
+    public int devicesPerRoom;
+
+    @Param({"100", "10000"})
+    public int logsPerDevice;
+
+    private AirConditioner airConditioner;
+    private LightBulb lightBulb;
+    private Date startTime;
+    private Date endTime;
+    private Date dayStart;
+    private Date dayEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.silenceConsole();
+        Household household = BenchmarkSupport.buildHousehold(HOUSEHOLD_ID, 3, devicesPerRoom, logsPerDevice);
+        HomeSphereSystem.getInstance().addHousehold(HOUSEHOLD_ID, household);
+
+        for (Device device : household.listAllDevices()) {
+            if (airConditioner == null && device instanceof AirConditioner) {
+                airConditioner = (AirConditioner) device;
+            }
+            if (lightBulb == null && device instanceof LightBulb) {
+                lightBulb = (LightBulb) device;
+            }
+        }
+        airConditioner.powerOn();
+        lightBulb.powerOn();
+
+        startTime = new Date(BenchmarkSupport.BASE_TIME);
+        endTime = BenchmarkSupport.endOfLogs(logsPerDevice);
+        // 位于日志历史中段的一天，用于衡量窄时间窗口查询
+        long middle = BenchmarkSupport.BASE_TIME + (logsPerDevice / 2) * BenchmarkSupport.LOG_INTERVAL;
+        dayStart = new Date(middle);
+        dayEnd = new Date(middle + 24 * 60 * 60 * 1000L);
+    }
+
+    @Benchmark
+    public double airConditionerFullReport() {
+        return airConditioner.getReport(startTime, endTime);
+    }
+
+    @Benchmark
+    public double airConditionerDayReport() {
+        return airConditioner.getReport(dayStart, dayEnd);
+    }
+
+    @Benchmark
+    public double lightBulbFullReport() {
+        return lightBulb.getReport(startTime, endTime);
+    }
+
+    @Benchmark
+    public double lightBulbDayReport() {
+        return lightBulb.getReport(dayStart, dayEnd);
+    }
+
+    @Benchmark
+    public void householdEnergyReport() {
+        HomeSphereSystem.getInstance().displayEnergyReportings(HOUSEHOLD_ID, startTime, endTime);
+    }
+}
@@ -0,0 +1,79 @@
+package Benchmark;
+
+import EmissionReduction.HouseholdExportEngine;
+import EmissionReduction.HtmlRunningLogFormatter;
+import EmissionReduction.JsonRunningLogFormatter;
+import EmissionReduction.XmlRunningLogFormatter;
+import UserAndHousehold.Household;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行日志格式化器基准测试
+ * 分别测量 JSON、HTML、XML 三种格式导出单个家庭的吞吐量，
+ * 以及依次导出三种格式与单次遍历同时导出三种格式的吞吐量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormatterBenchmark {
+    @Param({"4", "64"})
+    public int devicesPerRoom;
+
+    @Param({"10", "1000"})
+    public int logsPerDevice;
+
+    private Household household;
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceConsole();
+        household = BenchmarkSupport.buildHousehold(1, 3, devicesPerRoom, logsPerDevice);
+    }
+
+    @Benchmark
+    public String json() {
+        return JsonRunningLogFormatter.getInstance().format(household);
+    }
+
+    @Benchmark
+    public String html() {
+        return HtmlRunningLogFormatter.getInstance().format(household);
+    }
+
+    @Benchmark
+    public String xml() {
+        return XmlRunningLogFormatter.getInstance().format(household);
+    }
+
+    @Benchmark
+    public void allFormatsSeparately() throws IOException {
+        JsonRunningLogFormatter.getInstance().format(household, sink);
+        HtmlRunningLogFormatter.getInstance().format(household, sink);
+        XmlRunningLogFormatter.getInstance().format(household, sink);
+    }
+
+    @Benchmark
+    public IOException[] allFormatsSingleTraversal() {
+        return HouseholdExportEngine.export(household, Arrays.asList(
+                JsonRunningLogFormatter.getInstance().createVisitor(sink),
+                HtmlRunningLogFormatter.getInstance().createVisitor(sink),
+                XmlRunningLogFormatter.getInstance().createVisitor(sink)));
+    }
+}
@@ -0,0 +1,240 @@
+package Benchmark;
+
+import AutomatedWorkflow.AutomationScene;
+import AutomatedWorkflow.DeviceAction;
+import Common.HomeSphereSystem;
+import DeviceEquipment.AirConditioner;
+import DeviceEquipment.Device;
+import DeviceEquipment.LightBulb;
+import DeviceEquipment.Manufacturer;
+import EmissionReduction.RunningLog;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 大规模家庭数据生成器，用于基准测试与长时间稳定性测试
+ *
+ * 按给定的随机种子确定性地生成家庭、房间、设备、自动化场景以及开关机/调温运行日志。
+ * 每个家庭使用由种子与家庭序号派生出的独立随机数序列，因此可以并行构建，
+ * 且无论线程调度如何，同一组参数总是生成完全相同的数据。
+ */
+public class HouseholdFixture {
+    // 日志起始时间：2025-01-01 00:00:00 (UTC+8)
+    public static final long BASE_TIME = 1735660800000L;
+
+    private static final String[] DEVICE_TYPES = {"AirConditioner", "LightBulb", "SmartLock", "BathroomScale"};
+    private static final String[] ROOM_NAMES = {"客厅", "主卧", "次卧", "书房", "厨房", "卫生间", "阳台", "餐厅"};
+    private static final long MINUTE = 60 * 1000L;
+
+    // 预先构造事件与备注字符串，使所有日志共享同一批字符串对象
+    private static final String[] TEMPERATURE_EVENTS = new String[15];
+    private static final String[] WARNING_NOTES = {"信号弱", "电量低", "响应超时"};
+
+    static {
+        for (int i = 0; i < TEMPERATURE_EVENTS.length; i++) {
+            TEMPERATURE_EVENTS[i] = "setTemperature " + (double) (16 + i);
+        }
+    }
+
+    private final long seed;
+    private final int households;
+    private final int roomsPerHousehold;
+    private final int devicesPerRoom;
+    private final int logsPerDevice;
+    private int firstHouseholdId = 1;
+    private int scenesPerHousehold = 2;
+    private int commandsPerScene = 3;
+
+    /**
+     * 构造函数
+     * @param seed 随机种子
+     * @param households 家庭数量
+     * @param roomsPerHousehold 每个家庭的房间数量
+     * @param devicesPerRoom 每个房间的设备数量
+     * @param logsPerDevice 每个设备的运行日志数量
+     */
+    public HouseholdFixture(long seed, int households, int roomsPerHousehold, int devicesPerRoom, int logsPerDevice) {
+        if (households < 0 || roomsPerHousehold < 0 || devicesPerRoom < 0 || logsPerDevice < 0) {
+            throw new IllegalArgumentException("规模参数不能为负数");
+        }
+        this.seed = seed;
+        this.households = households;
+        this.roomsPerHousehold = roomsPerHousehold;
+        this.devicesPerRoom = devicesPerRoom;
+        this.logsPerDevice = logsPerDevice;
+    }
+
+    /**
+     * 设置第一个家庭的ID，后续家庭ID依次递增
+     * @param firstHouseholdId 第一个家庭的ID
+     */
+    public void setFirstHouseholdId(int firstHouseholdId) {
+        if (firstHouseholdId <= 0) {
+            throw new IllegalArgumentException("家庭ID必须为正数");
+        }
+        this.firstHouseholdId = firstHouseholdId;
+    }
+
+    /**
+     * 设置每个家庭的自动化场景数量
+     * @param scenesPerHousehold 场景数量
+     */
+    public void setScenesPerHousehold(int scenesPerHousehold) {
+        this.scenesPerHousehold = Math.max(0, scenesPerHousehold);
+    }
+
+    /**
+     * 设置每个场景包含的设备命令数量
+     * @param commandsPerScene 命令数量
+     */
+    public void setCommandsPerScene(int commandsPerScene) {
+        this.commandsPerScene = Math.max(0, commandsPerScene);
+    }
+
+    /**
+     * 获取单个家庭中的设备总数
+     * @return 设备总数
+     */
+    public int getDevicesPerHousehold() {
+        return roomsPerHousehold * devicesPerRoom;
+    }
+
+    /**
+     * 并行生成全部家庭
+     * @return 按家庭ID升序排列的家庭列表
+     */
+    public List<Household> generate() {
+        return IntStream.range(0, households)
+                .parallel()
+                .mapToObj(this::generateHousehold)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 生成全部家庭并注册到系统中
+     * @param system 系统实例
+     * @return 按家庭ID升序排列的家庭列表
+     * @throws Exception 当家庭注册失败时抛出异常
+     */
+    public List<Household> install(HomeSphereSystem system) throws Exception {
+        List<Household> result = generate();
+        for (Household household : result) {
+            system.addHousehold(household.getHouseholdId(), household);
+        }
+        return result;
+    }
+
+    /**
+     * 生成第 index 个家庭
+     * 设备ID在全部家庭范围内唯一：第 index 个家庭的设备ID从 index * 每户设备数 + 1 开始连续编号
+     *
+     * @param index 家庭序号，从0开始
+     * @return 家庭对象
+     */
+    public Household generateHousehold(int index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (index + 1)));
+        int householdId = firstHouseholdId + index;
+        Household household = new Household(householdId, "fixture-" + householdId);
+
+        // 制造商对象内部不是线程安全的，每个家庭使用独立的制造商实例
+        Manufacturer[] manufacturers = new Manufacturer[DEVICE_TYPES.length];
+        for (int i = 0; i < manufacturers.length; i++) {
+            manufacturers[i] = new Manufacturer(i + 1, DEVICE_TYPES[i] + "-maker", "Wi-Fi");
+        }
+
+        int deviceId = index * getDevicesPerHousehold() + 1;
+        for (int r = 1; r <= roomsPerHousehold; r++) {
+            Room room = new Room(r, ROOM_NAMES[(r - 1) % ROOM_NAMES.length] + r, 10 + random.nextInt(40));
+            for (int d = 0; d < devicesPerRoom; d++) {
+                int typeIndex = random.nextInt(DEVICE_TYPES.length);
+                String type = DEVICE_TYPES[typeIndex];
+                Device device = manufacturers[typeIndex].createDevice(deviceId, type + "-" + deviceId, type);
+                appendHistory(device, random);
+                room.addDevice(device);
+                deviceId++;
+            }
+            household.addRoom(room);
+        }
+
+        List<Device> devices = household.listAllDevices();
+        for (int s = 1; s <= scenesPerHousehold && !devices.isEmpty(); s++) {
+            AutomationScene scene = new AutomationScene(s, "scene-" + s, "fixture");
+            for (int c = 0; c < commandsPerScene; c++) {
+                Device device = devices.get(random.nextInt(devices.size()));
+                if (device instanceof AirConditioner && random.nextBoolean()) {
+                    scene.addCommand(DeviceAction.createCommand("setTemperature", device, String.valueOf(16 + random.nextInt(15))));
+                } else {
+                    scene.addCommand(DeviceAction.createCommand(random.nextBoolean() ? "powerOn" : "powerOff", device, null));
+                }
+            }
+            household.addAutoScene(scene);
+        }
+        return household;
+    }
+
+    /**
+     * 为设备生成按时间递增的运行日志
+     * 开关机事件交替出现，间隔5分钟到6小时不等；空调开机期间会穿插调温事件，
+     * 少量日志为带备注的 WARNING/ERROR 记录
+     *
+     * @param device 设备
+     * @param random 该家庭的随机数序列
+     */
+    private void appendHistory(Device device, SplittableRandom random) {
+        long time = BASE_TIME + random.nextLong(24 * 60) * MINUTE;
+        boolean on = false;
+        for (int i = 0; i < logsPerDevice; i++) {
+            time += (5 + random.nextLong(6 * 60 - 5)) * MINUTE;
+            String event;
+            if (on && device instanceof AirConditioner && random.nextInt(4) == 0) {
+                event = TEMPERATURE_EVENTS[random.nextInt(TEMPERATURE_EVENTS.length)];
+            } else {
+                on = !on;
+                event = on ? "powerOn" : "powerOff";
+            }
+
+            int roll = random.nextInt(100);
+            RunningLog.Type type = roll < 95 ? RunningLog.Type.INFO : (roll < 99 ? RunningLog.Type.WARNING : RunningLog.Type.ERROR);
+            String note = type == RunningLog.Type.INFO ? "" : WARNING_NOTES[random.nextInt(WARNING_NOTES.length)];
+            device.addRunningLog(new RunningLog(new Date(time), event, type, note));
+        }
+
+        // 使设备当前状态与日志中的最后一次开关机事件一致
+        if (on && (device instanceof AirConditioner || device instanceof LightBulb)) {
+            device.powerOn();
+        }
+    }
+
+    /**
+     * 命令行入口，用于生成长时间稳定性测试所需的数据并输出构建耗时与堆占用
+     * 参数依次为：家庭数量 每户房间数 每房间设备数 每设备日志数 [随机种子]
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("用法：HouseholdFixture <households> <roomsPerHousehold> <devicesPerRoom> <logsPerDevice> [seed]");
+            return;
+        }
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        HouseholdFixture fixture = new HouseholdFixture(seed, Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+
+        long begin = System.nanoTime();
+        List<Household> result = fixture.generate();
+        long elapsed = System.nanoTime() - begin;
+
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        long devices = (long) result.size() * fixture.getDevicesPerHousehold();
+        System.out.printf("households=%d devices=%d logs=%d time=%.2fs heap=%.1fMB%n",
+                result.size(), devices, devices * fixture.logsPerDevice, elapsed / 1e9, usedHeap / 1024.0 / 1024.0);
+    }
+}
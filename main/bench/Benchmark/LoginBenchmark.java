@@ -0,0 +1,68 @@
+package Benchmark;
+
+import Common.HomeSphereSystem;
+import Common.Session;
+import UserAndHousehold.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户登录与注册基准测试
+ * 测量 HomeSphereSystem.login 与 register 在不同注册用户规模下的吞吐量，
+ * 两者均通过登录名索引完成，吞吐量不应随用户数量增长而下降
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4600m", "-Xmx4600m"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoginBenchmark {
+    private static final String PASSWORD = "Bench1234";
+
+    // 1000万用户约占用 3.6GB 堆内存，需要相应调整 @Fork 中的堆大小
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int userCount;
+
+    private String[] loginNames;
+    private Session adminSession;
+    private int cursor;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.silenceConsole();
+        HomeSphereSystem system = HomeSphereSystem.getInstance();
+        loginNames = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            loginNames[i] = "bench_" + i;
+            system.register(loginNames[i], PASSWORD, "bench", phoneNumber(i));
+        }
+        adminSession = system.login(HomeSphereSystem.SUPER_USER_NAME, "111111");
+    }
+
+    @Benchmark
+    public void login() throws Exception {
+        cursor = (cursor + 1) % userCount;
+        // 登录后立即注销，使会话数量在测量期间保持不变
+        HomeSphereSystem system = HomeSphereSystem.getInstance();
+        system.logoff(system.login(loginNames[cursor], PASSWORD));
+    }
+
+    @Benchmark
+    public User registerAndRemove() throws Exception {
+        // 注册后立即删除，使用户规模在测量期间保持不变
+        HomeSphereSystem system = HomeSphereSystem.getInstance();
+        User user = system.register("fresh_" + (sequence++), PASSWORD, "bench", "13900000000");
+        system.removeUser(adminSession, user.getUserId());
+        return user;
+    }
+
+    /**
+     * 为第 i 个用户生成互不相同的手机号
+     */
+    private static String phoneNumber(int i) {
+        return "138" + String.format("%08d", i);
+    }
+}
@@ -0,0 +1,84 @@
+package Benchmark;
+
+import AutomatedWorkflow.AutomationScene;
+import AutomatedWorkflow.DeviceStatusTrigger;
+import AutomatedWorkflow.TimeTrigger;
+import Common.ConsoleEventSink;
+import Common.EventDispatcher;
+import Common.EventSink;
+import Common.RingBufferEventSink;
+import DeviceEquipment.AirConditioner;
+import DeviceEquipment.Device;
+import UserAndHousehold.Household;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动化场景执行基准测试
+ * 场景同时挂载时间触发器与设备状态触发器，测量 AutomationScene.execute 的吞吐量
+ * 设备已处于目标状态的命令会被跳过，因此交替执行一对电源命令相反的场景，使每次执行的命令都实际改变设备状态
+ * sink 参数选择事件接收器：console 在执行线程中同步输出，ring 交给后台线程输出，disabled 不输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SceneBenchmark {
+    @Param({"1", "16"})
+    public int commandCount;
+
+    @Param({"console", "ring", "disabled"})
+    public String sink;
+
+    // 正向与反向场景，交替执行
+    private AutomationScene[] scenes;
+    private int next;
+    private EventSink eventSink;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceConsole();
+        switch (sink) {
+            case "ring":
+                eventSink = new RingBufferEventSink(ConsoleEventSink.getInstance());
+                break;
+            case "disabled":
+                eventSink = EventSink.DISABLED;
+                break;
+            default:
+                eventSink = ConsoleEventSink.getInstance();
+                break;
+        }
+        EventDispatcher.getInstance().setSink(eventSink);
+        Household household = BenchmarkSupport.buildHousehold(1, 2, 8, 0);
+        scenes = new AutomationScene[] {
+                BenchmarkSupport.buildScene(household, 1, commandCount, false),
+                BenchmarkSupport.buildScene(household, 2, commandCount, true)
+        };
+
+        // 设备1为空调，目标温度默认25℃，使设备状态触发器始终处于激活状态
+        Device airConditioner = household.findDeviceById(1);
+        ((AirConditioner) airConditioner).setTargetTemp(25);
+        for (AutomationScene scene : scenes) {
+            scene.addTrigger(new TimeTrigger("00:00~23:59", "星期一、星期二、星期三、星期四、星期五、星期六、星期日"));
+            scene.addTrigger(new DeviceStatusTrigger(airConditioner, "温度达到25℃"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EventDispatcher.getInstance().setSink(ConsoleEventSink.getInstance());
+        eventSink.close();
+    }
+
+    @Benchmark
+    public AutomationScene execute() {
+        AutomationScene scene = scenes[next];
+        next ^= 1;
+        scene.execute();
+        return scene;
+    }
+}
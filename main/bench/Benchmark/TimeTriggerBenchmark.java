@@ -0,0 +1,51 @@
+package Benchmark;
+
+import AutomatedWorkflow.TimeTrigger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间触发器评估基准测试
+ * 预先构造大量不同时间段与活动日期的触发器，测量按同一时刻批量判断全部触发器的吞吐量，
+ * 每次操作评估全部触发器
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TimeTriggerBenchmark {
+    private static final String[] DAYS = {"星期一", "星期二", "星期三", "星期四", "星期五", "星期六", "星期日"};
+
+    @Param({"1000", "1000000"})
+    public int triggerCount;
+
+    private TimeTrigger[] triggers;
+    private int minute;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        triggers = new TimeTrigger[triggerCount];
+        for (int i = 0; i < triggerCount; i++) {
+            int start = (i * 37) % (24 * 60);
+            int end = (start + 90) % (24 * 60);
+            String timeExpr = String.format("%02d:%02d~%02d:%02d", start / 60, start % 60, end / 60, end % 60);
+            String activeDays = DAYS[i % 7] + "、" + DAYS[(i + 3) % 7];
+            triggers[i] = new TimeTrigger(timeExpr, activeDays);
+        }
+    }
+
+    @Benchmark
+    public int isActiveAt() {
+        minute = (minute + 1) % (24 * 60);
+        int active = 0;
+        for (TimeTrigger trigger : triggers) {
+            if (trigger.isActiveAt(3, minute)) {
+                active++;
+            }
+        }
+        return active;
+    }
+}
@@ -1,24 +1,31 @@
 package AutomatedWorkflow;
 
 import AutomatedWorkflow.DeviceCommand.DeviceCommand;
+import Common.EventDispatcher;
 import DeviceEquipment.Device;
 import DeviceEquipment.DeviceObserver;
-import EmissionReduction.RunningLog;
 
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *  场景类，用于描述自动化场景
  */
 public class AutomationScene implements DeviceObserver {
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
     private int sceneId;  // 修改字段名为更规范的 sceneId
     private String name;
     private String description;
-    private List<Trigger> triggers = new ArrayList<>();
-    private List<DeviceCommand> commands = new ArrayList<>();
-    private List<DeviceObserver> deviceTriggers = new ArrayList<>(); // 存储设备状态变化触发器
+    // 场景可能在设备通知线程中执行，同时被其他线程编辑，列表在遍历期间允许并发增删
+    private List<Trigger> triggers = new CopyOnWriteArrayList<>();
+    private List<DeviceCommand> commands = new CopyOnWriteArrayList<>();
+    private List<DeviceObserver> deviceTriggers = new CopyOnWriteArrayList<>(); // 存储设备状态变化触发器
+    // 最近一次被级联保护允许执行的时刻（纳秒），0 表示尚未执行过，用于防抖
+    private final AtomicLong lastAdmittedNanos = new AtomicLong();
+    // 防抖窗口内被合并的执行是否已安排了窗口结束时的尾随执行
+    private final AtomicBoolean trailingPending = new AtomicBoolean();
 
     /**
      *  构造函数，初始化场景ID、名称和描述
@@ -85,16 +92,21 @@ public class AutomationScene implements DeviceObserver {
      * 该方法会遍历场景中的所有设备动作并依次执行，同时记录执行日志
      */
     public void manualTrig(){
-        System.out.println("Manually triggering scene：" + name);
-
-        // 遍历并执行所有设备动作
-        for(DeviceCommand command : commands){
-            command.execute();
-            Date date = new Date();
-            RunningLog runningLog = new RunningLog(date, command.getDescription(), RunningLog.Type.INFO, "");
-            command.getDevice().addRunningLog(runningLog);
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish("Manually triggering scene：" + name);
+        }
+
+        // 合并后按设备执行所有设备动作，每个设备记录一条日志，设备动作引发的场景属于本场景开始的级联
+        CascadeGuard guard = CascadeGuard.getInstance();
+        CascadeGuard.Context previous = guard.install(guard.enter(this));
+        try {
+            CommandPlanner.execute(commands);
+        } finally {
+            guard.restore(previous);
+        }
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish("Scene with " + "ID " + getSceneId() + " trigged!");
         }
-        System.out.println("Scene with " + "ID " + getSceneId() + " trigged!");
     }
 
 
@@ -147,6 +159,17 @@ public class AutomationScene implements DeviceObserver {
      * 支持的触发器类型包括时间触发器和设备状态触发器。
      */
     public void execute(){
+        // 如果有触发器被激活，执行所有设备动作
+        if(evaluateTriggers()){
+            fire();
+        }
+    }
+
+    /**
+     * 评估全部触发器，判断是否有触发器被激活
+     * @return 有触发器被激活时返回true
+     */
+    private boolean evaluateTriggers(){
         // 检查触发器是否被激活的标志位
         boolean isTriggered = false;
 
@@ -169,17 +192,114 @@ public class AutomationScene implements DeviceObserver {
             }
         }
 
-        // 如果有触发器被激活，执行所有设备动作
-        if(isTriggered){
-            for (DeviceCommand command : commands){
-                command.execute();
-                System.out.println(command.getDescription());
-                // 记录执行日志
-                Date date = new Date();
-                RunningLog runningLog = new RunningLog(date, command.getDescription(), RunningLog.Type.INFO, "");
-                command.getDevice().addRunningLog(runningLog);
+        return isTriggered;
+    }
+
+    /**
+     * 执行所有设备动作并记录执行日志，不再评估触发器
+     * 触发器调度器在时间触发器的激活边沿直接调用该方法
+     * 设备动作经 CommandPlanner 合并后按设备执行，每个设备记录一条日志
+     */
+    public void fire(){
+        // 设备动作引发的场景属于本场景开始的级联
+        CascadeGuard guard = CascadeGuard.getInstance();
+        CascadeGuard.Context previous = guard.install(guard.enter(this));
+        try {
+            for (CommandResult result : CommandPlanner.execute(commands)){
+                if (EVENTS.isEnabled() && result.getStatus() == CommandResult.Status.EXECUTED) {
+                    EVENTS.publish(result.getCommand().getDescription());
+                }
             }
+        } finally {
+            guard.restore(previous);
+        }
+    }
+
+    /**
+     * 将全部设备动作提交到场景执行服务异步执行，不等待执行完毕
+     * 同一设备的设备动作按提交顺序执行，不同设备的设备动作并行执行。
+     * 由观察者驱动调用，执行前经级联保护检查，形成循环或超过最大级联深度时不执行；
+     * 处于防抖窗口内时本次不执行，与窗口内的其他执行合并为窗口结束时的一次尾随执行
+     * @return 场景执行句柄，可等待执行完毕并获取各设备动作的执行结果
+     */
+    public SceneExecution fireAsync(){
+        CascadeGuard.Context context = CascadeGuard.getInstance().admit(this);
+        if (context == null) {
+            return SceneExecution.suppressed(this);
         }
+        return SceneExecutionService.getInstance().submit(this, commands, context);
+    }
+
+    /**
+     * 手动触发场景，将全部设备动作提交到场景执行服务异步执行，执行完毕后输出提示
+     * @return 场景执行句柄
+     */
+    public SceneExecution manualTrigAsync(){
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish("Manually triggering scene：" + name);
+        }
+        SceneExecution execution = SceneExecutionService.getInstance().submit(this);
+        execution.getCompletion().thenAccept(results -> {
+            for (CommandResult result : results) {
+                if (EVENTS.isEnabled() && !result.isSucceeded()) {
+                    EVENTS.publish(result.toString());
+                }
+            }
+            if (EVENTS.isEnabled()) {
+                EVENTS.publish("Scene with " + "ID " + getSceneId() + " trigged!");
+            }
+        });
+        return execution;
+    }
+
+    /**
+     * 防抖检查，距上次允许执行超过时间窗口时记录本次时刻并返回true
+     * 多个线程同时检查时只有一个线程成功
+     * @param now 当前时刻（纳秒）
+     * @param windowNanos 防抖时间窗口（纳秒），为0时总是返回true
+     * @return 允许执行时返回true
+     */
+    boolean tryDebounce(long now, long windowNanos){
+        if (windowNanos == 0) {
+            return true;
+        }
+        long last = lastAdmittedNanos.get();
+        if (last != 0 && now - last < windowNanos) {
+            return false;
+        }
+        return lastAdmittedNanos.compareAndSet(last, now == 0 ? 1 : now);
+    }
+
+    /**
+     * 计算当前防抖窗口的剩余时间
+     * @param now 当前时刻（纳秒）
+     * @param windowNanos 防抖时间窗口（纳秒）
+     * @return 剩余时间（纳秒），窗口已结束时返回0
+     */
+    long debounceRemaining(long now, long windowNanos){
+        long last = lastAdmittedNanos.get();
+        return last == 0 ? 0 : Math.max(0, last + windowNanos - now);
+    }
+
+    /**
+     * 为防抖窗口内被合并的执行安排尾随执行，窗口内只安排一次
+     * @return 本次安排成功时返回true，已有尾随执行等待时返回false
+     */
+    boolean markTrailing(){
+        return trailingPending.compareAndSet(false, true);
+    }
+
+    /**
+     * 防抖窗口结束时执行合并的尾随执行，并以本次时刻开始新的防抖窗口
+     * 先清除等待标记，执行期间到达的新执行会再安排一次尾随执行，不会丢失
+     * @param now 当前时刻（纳秒）
+     * @param context 尾随执行的级联上下文
+     * @return 场景执行句柄
+     */
+    SceneExecution fireTrailing(long now, CascadeGuard.Context context){
+        trailingPending.set(false);
+        lastAdmittedNanos.set(now == 0 ? 1 : now);
+        return SceneExecutionService.getInstance().submit(this, commands, context);
     }
 
     /**
@@ -193,7 +313,7 @@ public class AutomationScene implements DeviceObserver {
             DeviceCommand lastCommand = commands.get(commands.size() - 1);
             // 执行撤销操作
             lastCommand.undo();
-            System.out.println("Last command undone");
+            EVENTS.publish("Last command undone");
         }
     }
 
@@ -223,11 +343,14 @@ public class AutomationScene implements DeviceObserver {
     /**
      * 实现DeviceObserver接口的update方法
      * 当观察的设备状态变化时，该方法会被调用
+     * 设备动作提交到场景执行服务异步执行，不阻塞设备通知链上的其他观察者
      */
     @Override
     public void update(Device device) {
         // 设备状态变化时自动执行场景
-        execute();
+        if(evaluateTriggers()){
+            fireAsync();
+        }
     }
 
 
@@ -1,5 +1,6 @@
 package AutomatedWorkflow;
 
+import Common.EventDispatcher;
 import DeviceEquipment.Device;
 import DeviceEquipment.DeviceObserver;
 
@@ -8,6 +9,7 @@ import DeviceEquipment.DeviceObserver;
  * 实现设备观察者接口，用于监听设备状态变化并触发相应的自动化场景
  */
 public class AutomationSceneTrigger implements DeviceObserver {
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
     private AutomationScene scene;
     private int triggerDeviceId;
     private boolean triggerPowerState;
@@ -32,9 +34,11 @@ public class AutomationSceneTrigger implements DeviceObserver {
     public void update(Device device) {
         // 检查是否是触发设备并且达到触发状态
         if (device.getDeviceId() == triggerDeviceId && device.isPowerStatus() == triggerPowerState) {
-            // 触发自动化场景
-            scene.execute();
-            System.out.println("设备状态变化触发自动化场景: " + scene.getName());
+            // 触发自动化场景，设备动作异步执行，不阻塞设备通知链
+            scene.update(device);
+            if (EVENTS.isEnabled()) {
+                EVENTS.publish("设备状态变化触发自动化场景: " + scene.getName());
+            }
         }
     }
 }
\ No newline at end of file
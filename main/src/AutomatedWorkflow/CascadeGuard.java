@@ -0,0 +1,275 @@
+package AutomatedWorkflow;
+
+import Common.EventDispatcher;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 级联保护类，防止观察者驱动的场景相互触发形成循环或风暴
+ *
+ * 场景的设备动作改变设备状态，可能经设备观察者触发其他场景，形成级联。每次级联携带一个
+ * 级联上下文，记录从最初触发开始依次执行的场景；上下文随设备动作一起传递到执行线程，
+ * 设备动作引发的场景继承该上下文。观察者驱动的场景执行前依次检查：
+ * <ul>
+ *     <li>场景已出现在当前级联中：形成循环，抑制执行；</li>
+ *     <li>级联深度达到上限：抑制执行；</li>
+ *     <li>场景距上次执行未超过防抖时间窗口：本次不执行，窗口内的全部此类执行合并为窗口结束时的一次尾随执行。</li>
+ * </ul>
+ * 观察者驱动的执行对应触发器的激活边沿，触发器已记为激活，被合并的边沿不会再次到达，
+ * 因此防抖只推迟执行而不丢弃：尾随执行由后台线程在窗口结束时提交。
+ * 被抑制与被合并的执行按原因计数，可通过计数器观察。手动触发的场景不做防抖检查。
+ */
+public class CascadeGuard {
+    // 默认最大级联深度
+    public static final int DEFAULT_MAX_DEPTH = 8;
+    // 默认防抖时间窗口（毫秒）
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private static final CascadeGuard INSTANCE = new CascadeGuard();
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
+
+    // 当前线程正在执行的级联，不在级联中时为null
+    private final ThreadLocal<Context> current = new ThreadLocal<>();
+    private volatile int maxDepth = DEFAULT_MAX_DEPTH;
+    private volatile long debounceNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DEBOUNCE_MILLIS);
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder cycleSuppressed = new LongAdder();
+    private final LongAdder depthSuppressed = new LongAdder();
+    private final LongAdder debounced = new LongAdder();
+    // 已安排、尚未提交的尾随执行数量
+    private final AtomicInteger pendingTrailing = new AtomicInteger();
+    // 提交尾随执行的后台线程，首次需要时创建
+    private ScheduledExecutorService timer;
+
+    private CascadeGuard() {
+    }
+
+    /**
+     * 获取级联保护的唯一实例
+     * @return 级联保护
+     */
+    public static CascadeGuard getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 判断观察者驱动的场景能否执行，能执行时返回该次执行的级联上下文
+     * @param scene 将要执行的场景
+     * @return 级联上下文，执行被抑制或合并到尾随执行时返回null
+     */
+    public Context admit(AutomationScene scene) {
+        Context context = current.get();
+        if (context != null && context.contains(scene)) {
+            cycleSuppressed.increment();
+            publish("场景 " + scene.getSceneId() + " 形成循环触发，已抑制");
+            return null;
+        }
+        if (context != null && context.depth >= maxDepth) {
+            depthSuppressed.increment();
+            publish("场景 " + scene.getSceneId() + " 超过最大级联深度 " + maxDepth + "，已抑制");
+            return null;
+        }
+        long now = System.nanoTime();
+        if (!scene.tryDebounce(now, debounceNanos)) {
+            debounced.increment();
+            if (scene.markTrailing()) {
+                scheduleTrailing(scene, Context.child(context, scene), scene.debounceRemaining(now, debounceNanos));
+            }
+            return null;
+        }
+        admitted.increment();
+        return Context.child(context, scene);
+    }
+
+    /**
+     * 以当前线程的级联为父级，为手动或直接调用的场景执行构造级联上下文，不做任何检查
+     * @param scene 将要执行的场景
+     * @return 级联上下文
+     */
+    public Context enter(AutomationScene scene) {
+        return Context.child(current.get(), scene);
+    }
+
+    /**
+     * 将当前线程切换到指定的级联上下文，执行完毕后以返回值调用 restore 恢复
+     * @param context 级联上下文
+     * @return 切换前的级联上下文
+     */
+    public Context install(Context context) {
+        Context previous = current.get();
+        current.set(context);
+        return previous;
+    }
+
+    /**
+     * 恢复当前线程切换前的级联上下文
+     * @param previous install 返回的级联上下文
+     */
+    public void restore(Context previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * 设置最大级联深度
+     * @param maxDepth 最大级联深度，至少为1
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("最大级联深度至少为1");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * 设置防抖时间窗口，同一场景在窗口内的多次观察者驱动执行只执行第一次，其余合并为窗口结束时的一次尾随执行
+     * @param debounceMillis 防抖时间窗口（毫秒），为0时不防抖
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("防抖时间窗口不能为负数");
+        }
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+    }
+
+    /**
+     * 获取允许执行的次数
+     * @return 允许执行的次数
+     */
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * 获取因循环触发被抑制的次数
+     * @return 抑制次数
+     */
+    public long getCycleSuppressedCount() {
+        return cycleSuppressed.sum();
+    }
+
+    /**
+     * 获取因超过最大级联深度被抑制的次数
+     * @return 抑制次数
+     */
+    public long getDepthSuppressedCount() {
+        return depthSuppressed.sum();
+    }
+
+    /**
+     * 获取因防抖被合并的次数
+     * @return 合并次数
+     */
+    public long getDebouncedCount() {
+        return debounced.sum();
+    }
+
+    /**
+     * 获取已安排、尚未提交的尾随执行数量
+     * @return 尾随执行数量
+     */
+    public int getPendingTrailingCount() {
+        return pendingTrailing.get();
+    }
+
+    /**
+     * 获取被抑制的总次数
+     * @return 抑制总次数
+     */
+    public long getSuppressedCount() {
+        return getCycleSuppressedCount() + getDepthSuppressedCount() + getDebouncedCount();
+    }
+
+    /**
+     * 清零全部计数器
+     */
+    public void resetCounters() {
+        admitted.reset();
+        cycleSuppressed.reset();
+        depthSuppressed.reset();
+        debounced.reset();
+    }
+
+    /**
+     * 在防抖窗口结束时提交尾随执行，提交后才减少等待数量，等待执行完毕的调用方不会漏掉它
+     */
+    private void scheduleTrailing(AutomationScene scene, Context context, long delayNanos) {
+        pendingTrailing.incrementAndGet();
+        timer().schedule(() -> {
+            try {
+                admitted.increment();
+                scene.fireTrailing(System.nanoTime(), context);
+            } catch (RuntimeException e) {
+                publish("场景 " + scene.getSceneId() + " 的尾随执行提交失败：" + e.getMessage());
+            } finally {
+                pendingTrailing.decrementAndGet();
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cascade-debounce");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return timer;
+    }
+
+    private static void publish(String event) {
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(event);
+        }
+    }
+
+    /**
+     * 级联上下文，记录一次级联中依次执行的场景，创建后不可修改
+     */
+    public static final class Context {
+        private final Context parent;
+        private final AutomationScene scene;
+        private final int depth;
+
+        private Context(Context parent, AutomationScene scene) {
+            this.parent = parent;
+            this.scene = scene;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+
+        private static Context child(Context parent, AutomationScene scene) {
+            return new Context(parent, scene);
+        }
+
+        /**
+         * 判断场景是否已出现在本级联中
+         * @param scene 场景
+         * @return 已出现时返回true
+         */
+        public boolean contains(AutomationScene scene) {
+            for (Context context = this; context != null; context = context.parent) {
+                if (context.scene == scene) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 获取级联深度，最初触发的场景深度为1
+         * @return 级联深度
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package AutomatedWorkflow;
+
+import AutomatedWorkflow.DeviceCommand.DeviceCommand;
+import DeviceEquipment.Device;
+import DeviceEquipment.DeviceProperty;
+import EmissionReduction.RunningLog;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 设备动作规划类，将场景的设备动作按设备分组并合并冗余的设备动作
+ *
+ * 同一设备上写入同一属性（见 DeviceCommand.getWrittenProperty）的多条设备动作只保留最后一条，
+ * 保留的设备动作按原顺序执行；无法确定写入属性的设备动作不参与合并，并且前后的设备动作不会跨越它合并。
+ * 执行时设备已处于目标状态的设备动作被跳过。每个设备的一批设备动作执行完毕后只记录一条运行日志，
+ * 事件取自固定词汇：电源状态发生变化时为 powerOn 或 powerOff（能耗统计依赖这两个事件），
+ * 否则只执行了一条设备动作时为其种类（见 DeviceCommand.getKind），执行了多条时为 batch。
+ * 带参数的描述与失败原因等自由文本只写入备注：备注列出执行的全部设备动作描述，
+ * 有设备动作失败时日志类型为 ERROR，备注中追加失败原因。
+ */
+public final class CommandPlanner {
+    // 一批执行了多条设备动作且电源状态未变化时的日志事件
+    public static final String BATCH_EVENT = "batch";
+
+    private CommandPlanner() {
+    }
+
+    /**
+     * 按设备分组并合并设备动作
+     * @param commands 设备动作列表
+     * @return 每个设备一批，按设备在列表中首次出现的顺序排列
+     */
+    public static List<Batch> plan(List<DeviceCommand> commands) {
+        Map<Integer, Batch> batches = new LinkedHashMap<>();
+        int position = 0;
+        for (DeviceCommand command : commands) {
+            Device device = command.getDevice();
+            batches.computeIfAbsent(device.getDeviceId(), id -> new Batch(device)).add(command, position++);
+        }
+        for (Batch batch : batches.values()) {
+            batch.coalesce();
+        }
+        return new ArrayList<>(batches.values());
+    }
+
+    /**
+     * 同步执行全部设备动作，每个设备记录一条运行日志
+     * @param commands 设备动作列表
+     * @return 各设备动作的执行结果，按设备动作列表的顺序排列
+     */
+    public static List<CommandResult> execute(List<DeviceCommand> commands) {
+        List<Batch> batches = plan(commands);
+        CommandResult[] results = new CommandResult[commands.size()];
+        for (Batch batch : batches) {
+            batch.collect(batch.execute(), results);
+        }
+        List<CommandResult> list = new ArrayList<>(results.length);
+        for (CommandResult result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+
+    /**
+     * 一个设备的一批设备动作
+     */
+    public static final class Batch {
+        private final Device device;
+        private final List<DeviceCommand> commands = new ArrayList<>();
+        // 各设备动作在原设备动作列表中的位置
+        private final List<Integer> positions = new ArrayList<>();
+        private boolean[] coalesced;
+        private int coalescedCount;
+
+        private Batch(Device device) {
+            this.device = device;
+        }
+
+        private void add(DeviceCommand command, int position) {
+            commands.add(command);
+            positions.add(position);
+        }
+
+        /**
+         * 从后向前扫描，写入的属性已被后续设备动作写入时标记为合并；
+         * 不参与合并的设备动作清空已写入的属性，两侧的设备动作不跨越它合并
+         */
+        private void coalesce() {
+            coalesced = new boolean[commands.size()];
+            Set<DeviceProperty> written = EnumSet.noneOf(DeviceProperty.class);
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                DeviceProperty property = commands.get(i).getWrittenProperty();
+                if (property == null) {
+                    written.clear();
+                } else if (!written.add(property)) {
+                    coalesced[i] = true;
+                    coalescedCount++;
+                }
+            }
+        }
+
+        /**
+         * 获取设备
+         * @return 设备
+         */
+        public Device getDevice() {
+            return device;
+        }
+
+        /**
+         * 获取本批设备动作的数量，包括被合并的设备动作
+         * @return 设备动作数量
+         */
+        public int size() {
+            return commands.size();
+        }
+
+        /**
+         * 获取被合并、不会执行的设备动作数量
+         * @return 合并数量
+         */
+        public int getCoalescedCount() {
+            return coalescedCount;
+        }
+
+        /**
+         * 依次执行保留的设备动作，跳过设备已处于目标状态的设备动作，单个设备动作失败不影响后续设备动作，
+         * 有设备动作实际执行时记录一条运行日志
+         * @return 本批各设备动作的执行结果，按本批设备动作的顺序排列
+         */
+        public CommandResult[] execute() {
+            CommandResult[] results = new CommandResult[commands.size()];
+            boolean poweredBefore = device.isPowerStatus();
+            List<DeviceCommand> executed = new ArrayList<>();
+            StringBuilder failures = new StringBuilder();
+            for (int i = 0; i < results.length; i++) {
+                DeviceCommand command = commands.get(i);
+                if (coalesced[i]) {
+                    results[i] = new CommandResult(command, CommandResult.Status.COALESCED, null, 0);
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    if (command.executeIfChanged()) {
+                        executed.add(command);
+                        results[i] = new CommandResult(command, CommandResult.Status.EXECUTED, null, System.nanoTime() - start);
+                    } else {
+                        results[i] = new CommandResult(command, CommandResult.Status.SKIPPED, null, System.nanoTime() - start);
+                    }
+                } catch (RuntimeException e) {
+                    executed.add(command);
+                    if (failures.length() > 0) {
+                        failures.append("；");
+                    }
+                    failures.append(command.getDescription()).append("：").append(e.getMessage());
+                    results[i] = new CommandResult(command, CommandResult.Status.EXECUTED, e, System.nanoTime() - start);
+                }
+            }
+            if (!executed.isEmpty()) {
+                device.addRunningLog(log(executed, poweredBefore, failures));
+            }
+            return results;
+        }
+
+        /**
+         * 将本批的执行结果放到原设备动作列表中对应的位置
+         * @param batchResults execute 返回的执行结果
+         * @param results 按原设备动作列表排列的执行结果
+         */
+        void collect(CommandResult[] batchResults, CommandResult[] results) {
+            for (int i = 0; i < batchResults.length; i++) {
+                results[positions.get(i)] = batchResults[i];
+            }
+        }
+
+        private RunningLog log(List<DeviceCommand> executed, boolean poweredBefore, StringBuilder failures) {
+            StringBuilder descriptions = new StringBuilder();
+            for (DeviceCommand command : executed) {
+                if (descriptions.length() > 0) {
+                    descriptions.append("; ");
+                }
+                descriptions.append(command.getDescription());
+            }
+            boolean poweredAfter = device.isPowerStatus();
+            String event;
+            if (poweredAfter != poweredBefore) {
+                event = poweredAfter ? "powerOn" : "powerOff";
+            } else if (executed.size() == 1) {
+                event = executed.get(0).getKind();
+            } else {
+                event = BATCH_EVENT;
+            }
+            // 描述与事件相同时（如单条 powerOn）不重复写入备注
+            String note = event.contentEquals(descriptions) ? "" : descriptions.toString();
+            if (failures.length() > 0) {
+                note = note.isEmpty() ? failures.toString() : note + "；" + failures;
+                return new RunningLog(new Date(), event, RunningLog.Type.ERROR, note);
+            }
+            return new RunningLog(new Date(), event, RunningLog.Type.INFO, note);
+        }
+    }
+}
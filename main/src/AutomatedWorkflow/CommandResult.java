@@ -0,0 +1,104 @@
+package AutomatedWorkflow;
+
+import AutomatedWorkflow.DeviceCommand.DeviceCommand;
+
+/**
+ * 设备动作执行结果类，记录一次设备动作的执行情况
+ */
+public class CommandResult {
+    /**
+     * 设备动作的处理方式
+     */
+    public enum Status {
+        // 已向设备执行
+        EXECUTED,
+        // 被同一设备上写入同一属性的后续设备动作覆盖，未执行
+        COALESCED,
+        // 设备已处于目标状态，未执行
+        SKIPPED
+    }
+
+    private final DeviceCommand command;
+    private final Status status;
+    private final Throwable error;
+    private final long durationNanos;
+
+    /**
+     * 构造函数
+     * @param command 设备动作
+     * @param error 执行失败时的异常，成功时为null
+     * @param durationNanos 执行耗时（纳秒）
+     */
+    public CommandResult(DeviceCommand command, Throwable error, long durationNanos) {
+        this(command, Status.EXECUTED, error, durationNanos);
+    }
+
+    /**
+     * 构造函数
+     * @param command 设备动作
+     * @param status 处理方式
+     * @param error 执行失败时的异常，成功时为null
+     * @param durationNanos 执行耗时（纳秒）
+     */
+    public CommandResult(DeviceCommand command, Status status, Throwable error, long durationNanos) {
+        this.command = command;
+        this.status = status;
+        this.error = error;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * 获取设备动作
+     * @return 设备动作
+     */
+    public DeviceCommand getCommand() {
+        return command;
+    }
+
+    /**
+     * 获取设备动作的处理方式
+     * @return 处理方式
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 判断设备动作是否执行成功，被合并或跳过的设备动作视为成功
+     * @return 执行成功时返回true
+     */
+    public boolean isSucceeded() {
+        return error == null;
+    }
+
+    /**
+     * 获取执行失败时的异常
+     * @return 异常，执行成功时返回null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * 获取执行耗时
+     * @return 执行耗时（纳秒）
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        String outcome;
+        if (error != null) {
+            outcome = "失败 " + error.getMessage();
+        } else if (status == Status.COALESCED) {
+            outcome = "已合并";
+        } else if (status == Status.SKIPPED) {
+            outcome = "无需执行";
+        } else {
+            outcome = "成功";
+        }
+        return command.getDevice().getName() + " " + command.getDescription() + "：" + outcome;
+    }
+}
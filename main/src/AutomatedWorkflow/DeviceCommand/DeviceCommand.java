@@ -1,6 +1,7 @@
 package AutomatedWorkflow.DeviceCommand;
 
 import DeviceEquipment.Device;
+import DeviceEquipment.DeviceProperty;
 
 /**
  * 设备命令接口，定义了设备操作命令的标准接口
@@ -30,5 +31,33 @@ public interface DeviceCommand {
      * @return String 命令的描述字符串
      */
     String getDescription();
+
+    /**
+     * 获取命令的种类，即不含参数的命令名称，用作运行日志的事件
+     * 种类是取值有限的固定词汇，参数等可变内容应放在描述中
+     * @return 命令种类，默认为类名
+     */
+    default String getKind() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * 获取命令完整写入的设备属性
+     * 同一设备上写入同一属性的多条命令只有最后一条生效，可由 CommandPlanner 合并
+     * @return 写入的属性，无法确定时返回null，此时命令不参与合并
+     */
+    default DeviceProperty getWrittenProperty() {
+        return null;
+    }
+
+    /**
+     * 仅在设备当前状态与命令的目标状态不同时执行命令
+     * 无论是否执行，撤销时都恢复到调用前的状态
+     * @return 实际执行时返回true，设备已处于目标状态时返回false
+     */
+    default boolean executeIfChanged() {
+        execute();
+        return true;
+    }
 }
 
@@ -1,12 +1,15 @@
 package AutomatedWorkflow.DeviceCommand;
 
+import Common.EventDispatcher;
 import DeviceEquipment.Device;
+import DeviceEquipment.DeviceProperty;
 
 /**
  * PowerOffCommand类实现了DeviceCommand接口，用于执行设备关机命令
  * 该命令支持执行关机操作和撤销操作（恢复到关机前的状态）
  */
 public class PowerOffCommand implements DeviceCommand{
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
     private Device device;
     private boolean previousStatus;
 
@@ -27,7 +30,9 @@ public class PowerOffCommand implements DeviceCommand{
     public void execute() {
         previousStatus = device.isPowerStatus();
         device.powerOff();
-        System.out.println(device.getName() + " powered off");
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(device.getName() + " powered off");
+        }
     }
 
     /**
@@ -39,10 +44,29 @@ public class PowerOffCommand implements DeviceCommand{
         // 如果关机前设备是开机状态，则执行开机操作进行恢复
         if(previousStatus) {
             device.powerOn();
-            System.out.println(device.getName() + " powered on");
+            if (EVENTS.isEnabled()) {
+                EVENTS.publish(device.getName() + " powered on");
+            }
         }
     }
 
+    /**
+     * 设备未处于关机状态时执行关机命令
+     * @return 实际执行时返回true
+     */
+    @Override
+    public boolean executeIfChanged() {
+        previousStatus = device.isPowerStatus();
+        if (!previousStatus) {
+            return false;
+        }
+        device.powerOff();
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(device.getName() + " powered off");
+        }
+        return true;
+    }
+
     /**
      * 获取命令关联的设备对象
      * @return 设备对象
@@ -60,5 +84,23 @@ public class PowerOffCommand implements DeviceCommand{
     public String getDescription() {
         return "powerOff";
     }
+
+    /**
+     * 获取命令种类
+     * @return 命令种类"powerOff"
+     */
+    @Override
+    public String getKind() {
+        return "powerOff";
+    }
+
+    /**
+     * 获取命令写入的设备属性
+     * @return 电源状态
+     */
+    @Override
+    public DeviceProperty getWrittenProperty() {
+        return DeviceProperty.POWER_STATUS;
+    }
 }
 
@@ -1,12 +1,15 @@
 package AutomatedWorkflow.DeviceCommand;
 
+import Common.EventDispatcher;
 import DeviceEquipment.Device;
+import DeviceEquipment.DeviceProperty;
 
 /**
  * PowerOnCommand类实现了DeviceCommand接口，用于执行设备开机命令
  * 该命令支持执行和撤销操作，可以将设备状态恢复到执行前的状态
  */
 public class PowerOnCommand implements DeviceCommand{
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
     private Device device;
     private boolean previousStatus;
 
@@ -26,7 +29,9 @@ public class PowerOnCommand implements DeviceCommand{
     public void execute() {
         previousStatus = device.isPowerStatus();
         device.powerOn();
-        System.out.println(device.getName() + " powered on");
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(device.getName() + " powered on");
+        }
     }
 
     /**
@@ -37,10 +42,29 @@ public class PowerOnCommand implements DeviceCommand{
         // 如果执行命令前设备是关机状态，则执行撤销操作将其关机
         if(!previousStatus) {
             device.powerOff();
-            System.out.println(device.getName() + " powered off");
+            if (EVENTS.isEnabled()) {
+                EVENTS.publish(device.getName() + " powered off");
+            }
         }
     }
 
+    /**
+     * 设备未处于开机状态时执行开机命令
+     * @return 实际执行时返回true
+     */
+    @Override
+    public boolean executeIfChanged() {
+        previousStatus = device.isPowerStatus();
+        if (previousStatus) {
+            return false;
+        }
+        device.powerOn();
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(device.getName() + " powered on");
+        }
+        return true;
+    }
+
     /**
      * 获取当前命令关联的设备对象
      * @return 设备对象
@@ -58,4 +82,22 @@ public class PowerOnCommand implements DeviceCommand{
     public String getDescription() {
         return "powerOn";
     }
+
+    /**
+     * 获取命令种类
+     * @return 命令种类"powerOn"
+     */
+    @Override
+    public String getKind() {
+        return "powerOn";
+    }
+
+    /**
+     * 获取命令写入的设备属性
+     * @return 电源状态
+     */
+    @Override
+    public DeviceProperty getWrittenProperty() {
+        return DeviceProperty.POWER_STATUS;
+    }
 }
@@ -1,7 +1,9 @@
 package AutomatedWorkflow.DeviceCommand;
 
+import Common.EventDispatcher;
 import DeviceEquipment.AirConditioner;
 import DeviceEquipment.Device;
+import DeviceEquipment.DeviceProperty;
 
 /**
  * 设置温度命令类
@@ -9,6 +11,7 @@ import DeviceEquipment.Device;
  * 支持执行和撤销操作
  */
 public class SetTemperatureCommand implements DeviceCommand{
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
     private Device device;
     private double previousTemperature;
     private double targetTemperature;
@@ -36,7 +39,26 @@ public class SetTemperatureCommand implements DeviceCommand{
     public void execute() {
         previousTemperature = ((AirConditioner)device).getTargetTemp();
         ((AirConditioner)device).setTargetTemp(targetTemperature);
-        System.out.println(((AirConditioner)device).getName() + " set temperature to " + targetTemperature);
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(((AirConditioner)device).getName() + " set temperature to " + targetTemperature);
+        }
+    }
+
+    /**
+     * 空调的目标温度与指定值不同时执行设置温度命令
+     * @return 实际执行时返回true
+     */
+    @Override
+    public boolean executeIfChanged() {
+        previousTemperature = ((AirConditioner)device).getTargetTemp();
+        if (Double.compare(previousTemperature, targetTemperature) == 0) {
+            return false;
+        }
+        ((AirConditioner)device).setTargetTemp(targetTemperature);
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(((AirConditioner)device).getName() + " set temperature to " + targetTemperature);
+        }
+        return true;
     }
 
     /**
@@ -46,7 +68,9 @@ public class SetTemperatureCommand implements DeviceCommand{
     @Override
     public void undo() {
         ((AirConditioner) device).setTargetTemp(previousTemperature);
-        System.out.println(((AirConditioner) device).getName() + " set temperature to " + previousTemperature);
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(((AirConditioner) device).getName() + " set temperature to " + previousTemperature);
+        }
     }
 
     /**
@@ -66,5 +90,31 @@ public class SetTemperatureCommand implements DeviceCommand{
     public String getDescription() {
         return "setTemperature " + targetTemperature;
     }
+
+    /**
+     * 获取目标温度
+     * @return 目标温度值
+     */
+    public double getTargetTemperature() {
+        return targetTemperature;
+    }
+
+    /**
+     * 获取命令种类
+     * @return 命令种类"setTemperature"
+     */
+    @Override
+    public String getKind() {
+        return "setTemperature";
+    }
+
+    /**
+     * 获取命令写入的设备属性
+     * @return 目标温度
+     */
+    @Override
+    public DeviceProperty getWrittenProperty() {
+        return DeviceProperty.TARGET_TEMP;
+    }
 }
 
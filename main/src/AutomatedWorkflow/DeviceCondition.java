@@ -0,0 +1,381 @@
+package AutomatedWorkflow;
+
+import DeviceEquipment.Device;
+import DeviceEquipment.DeviceProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 设备条件类，将条件表达式编译为谓词树
+ *
+ * 表达式在编译时解析一次，评估时只读取设备属性并比较数值，不分配内存。语法：
+ * <pre>
+ * 表达式   := 或表达式
+ * 或表达式 := 与表达式 { ("or" | "||" | "或") 与表达式 }
+ * 与表达式 := 非表达式 { ("and" | "&amp;&amp;" | "且") 非表达式 }
+ * 非表达式 := ("not" | "!" | "非") 非表达式 | "(" 表达式 ")" | 比较
+ * 比较     := 属性 比较符 值
+ *           | 属性 "between" 数值 "and" 数值
+ *           | 属性 "in" "[" 数值 "," 数值 "]"
+ *           | 布尔属性
+ * 比较符   := "==" | "=" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;="
+ * 值       := 数值 | "true" | "false" | "on" | "off"
+ * </pre>
+ * 属性名称见 DeviceProperty，例如 "targetTemp >= 26℃ and powerStatus"、
+ * "not locked or batteryLevel in [0, 20]"。数值可带单位（℃、%、kg），单位被忽略；
+ * 区间的两端均包含在内。关键字与中文属性名之间以空格分隔。设备不具有条件引用的属性时，该比较不成立。
+ *
+ * 为兼容旧的条件写法，无法按上述语法解析、不含比较符、逻辑符号、括号、关键字与属性名，
+ * 但含有 "N℃" 的自由文本条件（例如 "温度达到25℃"）编译为 "targetTemp == N"；
+ * 其他无法解析的条件一律视为有误，不会退回旧写法。
+ */
+public final class DeviceCondition {
+    // 旧写法中的温度值
+    private static final Pattern LEGACY_TEMPERATURE = Pattern.compile("(\\d+)℃");
+    // 出现在表达式中即说明不是旧写法的符号与关键字
+    private static final Pattern EXPRESSION_SYMBOLS = Pattern.compile("[=<>!&|()\\[\\]]");
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "and", "or", "not", "between", "in", "且", "或", "非"));
+
+    private final String source;
+    private final Node root;
+    private final Set<DeviceProperty> properties;
+
+    private DeviceCondition(String source, Node root, Set<DeviceProperty> properties) {
+        this.source = source;
+        this.root = root;
+        this.properties = Collections.unmodifiableSet(properties);
+    }
+
+    /**
+     * 编译条件表达式
+     * @param source 条件表达式
+     * @return 编译后的条件
+     * @throws IllegalArgumentException 条件表达式有误时抛出异常
+     */
+    public static DeviceCondition compile(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            throw new IllegalArgumentException("触发条件不能为空");
+        }
+        try {
+            Parser parser = new Parser(source);
+            Node root = parser.parse();
+            return new DeviceCondition(source, root, parser.properties);
+        } catch (IllegalArgumentException e) {
+            Matcher matcher = LEGACY_TEMPERATURE.matcher(source);
+            if (!matcher.find() || !isLegacy(source)) {
+                throw e;
+            }
+            double target = Integer.parseInt(matcher.group(1));
+            Node root = compare(DeviceProperty.TARGET_TEMP, "==", target);
+            return new DeviceCondition(source, root, EnumSet.of(DeviceProperty.TARGET_TEMP));
+        }
+    }
+
+    /**
+     * 判断条件是否为旧的自由文本写法：不含表达式的符号，也没有单词是关键字或属性名
+     */
+    private static boolean isLegacy(String source) {
+        if (EXPRESSION_SYMBOLS.matcher(source).find()) {
+            return false;
+        }
+        for (String word : source.trim().split("[\\s,]+")) {
+            if (KEYWORDS.contains(word.toLowerCase(Locale.ROOT)) || DeviceProperty.forName(word) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断设备是否满足条件
+     * @param device 设备，为null时不满足
+     * @return 满足条件时返回true
+     */
+    public boolean test(Device device) {
+        return device != null && root.test(device);
+    }
+
+    /**
+     * 获取条件引用的全部设备属性
+     * @return 不可修改的属性集合
+     */
+    public Set<DeviceProperty> getProperties() {
+        return properties;
+    }
+
+    /**
+     * 获取条件表达式原文
+     * @return 条件表达式
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * 谓词树节点
+     */
+    private interface Node {
+        boolean test(Device device);
+    }
+
+    /**
+     * 构造属性与常量比较的节点，属性值为 NaN（设备不具有该属性）时任何比较都不成立
+     */
+    private static Node compare(DeviceProperty property, String operator, double value) {
+        switch (operator) {
+            case "==":
+            case "=":
+                return device -> property.read(device) == value;
+            case "!=":
+                return device -> {
+                    double actual = property.read(device);
+                    return !Double.isNaN(actual) && actual != value;
+                };
+            case "<":
+                return device -> property.read(device) < value;
+            case "<=":
+                return device -> property.read(device) <= value;
+            case ">":
+                return device -> property.read(device) > value;
+            case ">=":
+                return device -> property.read(device) >= value;
+            default:
+                throw new IllegalArgumentException("触发条件有误！无法识别的比较符：" + operator);
+        }
+    }
+
+    /**
+     * 递归下降解析器
+     */
+    private static final class Parser {
+        private final String source;
+        private final List<String> tokens;
+        private final Set<DeviceProperty> properties = EnumSet.noneOf(DeviceProperty.class);
+        private int position;
+
+        private Parser(String source) {
+            this.source = source;
+            this.tokens = tokenize(source);
+        }
+
+        private Node parse() {
+            Node node = parseOr();
+            if (position < tokens.size()) {
+                throw error("多余的内容 " + tokens.get(position));
+            }
+            return node;
+        }
+
+        private Node parseOr() {
+            Node left = parseAnd();
+            while (accept("or", "||", "或")) {
+                Node first = left;
+                Node second = parseAnd();
+                left = device -> first.test(device) || second.test(device);
+            }
+            return left;
+        }
+
+        private Node parseAnd() {
+            Node left = parseNot();
+            while (accept("and", "&&", "且")) {
+                Node first = left;
+                Node second = parseNot();
+                left = device -> first.test(device) && second.test(device);
+            }
+            return left;
+        }
+
+        private Node parseNot() {
+            if (accept("not", "!", "非")) {
+                Node operand = parseNot();
+                return device -> !operand.test(device);
+            }
+            if (accept("(")) {
+                Node node = parseOr();
+                expect(")");
+                return node;
+            }
+            return parseComparison();
+        }
+
+        private Node parseComparison() {
+            String name = next("属性");
+            DeviceProperty property = DeviceProperty.forName(name);
+            if (property == null) {
+                throw error("无法识别的属性 " + name);
+            }
+            properties.add(property);
+
+            if (accept("between")) {
+                double low = number();
+                expect("and");
+                double high = number();
+                return range(property, low, high);
+            }
+            if (accept("in")) {
+                expect("[");
+                double low = number();
+                expect(",");
+                double high = number();
+                expect("]");
+                return range(property, low, high);
+            }
+            String operator = peek();
+            if (operator != null && isOperator(operator)) {
+                position++;
+                return compare(property, operator, value());
+            }
+            // 单独出现的布尔属性表示该属性为真
+            if (!property.isBoolean()) {
+                throw error("属性 " + name + " 缺少比较");
+            }
+            return device -> property.read(device) == 1;
+        }
+
+        private Node range(DeviceProperty property, double low, double high) {
+            if (low > high) {
+                throw error("区间下限大于上限");
+            }
+            return device -> {
+                double actual = property.read(device);
+                return actual >= low && actual <= high;
+            };
+        }
+
+        private double value() {
+            String token = next("值");
+            switch (token.toLowerCase(Locale.ROOT)) {
+                case "true":
+                case "on":
+                    return 1;
+                case "false":
+                case "off":
+                    return 0;
+                default:
+                    position--;
+                    return number();
+            }
+        }
+
+        private double number() {
+            String token = next("数值");
+            String digits = token;
+            // 忽略数值后的单位
+            for (String unit : new String[]{"℃", "%", "kg"}) {
+                if (digits.toLowerCase(Locale.ROOT).endsWith(unit)) {
+                    digits = digits.substring(0, digits.length() - unit.length());
+                    break;
+                }
+            }
+            try {
+                return Double.parseDouble(digits);
+            } catch (NumberFormatException e) {
+                throw error("无法识别的数值 " + token);
+            }
+        }
+
+        private boolean accept(String... expected) {
+            String token = peek();
+            if (token == null) {
+                return false;
+            }
+            for (String candidate : expected) {
+                if (candidate.equalsIgnoreCase(token)) {
+                    position++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void expect(String expected) {
+            if (!accept(expected)) {
+                throw error("缺少 " + expected);
+            }
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private String next(String what) {
+            if (position >= tokens.size()) {
+                throw error("缺少" + what);
+            }
+            return tokens.get(position++);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("触发条件有误！" + message + "：" + source);
+        }
+
+        private static boolean isOperator(String token) {
+            switch (token) {
+                case "==":
+                case "=":
+                case "!=":
+                case "<":
+                case "<=":
+                case ">":
+                case ">=":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * 将表达式切分为单词：标识符与数值（含单位）、比较符、逻辑符号与括号
+         */
+        private static List<String> tokenize(String source) {
+            List<String> tokens = new ArrayList<>();
+            int i = 0;
+            int length = source.length();
+            while (i < length) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if ("()[],".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else if ("=!<>&|".indexOf(c) >= 0) {
+                    int start = i++;
+                    if (i < length && "=&|".indexOf(source.charAt(i)) >= 0) {
+                        i++;
+                    }
+                    tokens.add(source.substring(start, i));
+                } else if (c == '-' || c == '.' || Character.isLetterOrDigit(c) || c == '_' || c == '%' || c == '℃') {
+                    int start = i++;
+                    while (i < length) {
+                        char d = source.charAt(i);
+                        if (Character.isLetterOrDigit(d) || d == '_' || d == '.' || d == '%' || d == '℃') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    tokens.add(source.substring(start, i));
+                } else {
+                    throw new IllegalArgumentException("触发条件有误！无法识别的字符 " + c + "：" + source);
+                }
+            }
+            return tokens;
+        }
+    }
+}
@@ -1,27 +1,47 @@
 package AutomatedWorkflow;
 
-import DeviceEquipment.AirConditioner;
+import Common.EventDispatcher;
+import Common.HomeSphereSystem;
 import DeviceEquipment.Device;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * 设备状态触发器类
+ * 触发条件在构造时编译为 DeviceCondition，语法见该类说明
  */
 public class DeviceStatusTrigger implements Trigger{
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
+    // 直接关联的设备，按设备ID构造时为null，每次评估时通过全局设备索引定位
     private Device device;
+    private int deviceId;
     private String condition;
-    private boolean isActive;
+    private final DeviceCondition compiledCondition;
+    private volatile boolean isActive;
 
     /**
      * 构造函数
      * @param device 设备
      * @param condition 触发条件
+     * @throws IllegalArgumentException 触发条件有误时抛出异常
      */
     public DeviceStatusTrigger(Device device, String condition) {
         this.device = device;
+        this.deviceId = device.getDeviceId();
         this.condition = condition;
+        this.compiledCondition = DeviceCondition.compile(condition);
+    }
+
+    /**
+     * 构造函数，按设备ID关联设备
+     * 设备在评估时通过全局设备索引以 O(1) 定位，设备被移除后触发器不再激活
+     *
+     * @param deviceId 设备ID
+     * @param condition 触发条件
+     * @throws IllegalArgumentException 触发条件有误时抛出异常
+     */
+    public DeviceStatusTrigger(int deviceId, String condition) {
+        this.deviceId = deviceId;
+        this.condition = condition;
+        this.compiledCondition = DeviceCondition.compile(condition);
     }
     /**
      * 获取触发器状态
@@ -33,37 +53,30 @@ public class DeviceStatusTrigger implements Trigger{
 
     /**
      * 评估设备状态触发条件
-     * 该方法用于检查当前条件是否满足触发器激活的要求，主要通过解析条件字符串中的温度值，
-     * 并与空调设备的目标温度进行比较来确定触发器状态
+     * 以编译后的条件判断关联设备的当前状态，设备不存在时触发器不激活
      */
     @Override
     public void evaluate(){
-        // 定义温度匹配的正则表达式模式，匹配数字后跟℃符号的格式
-        String basicPattern = "(\\d+)℃";
-        Pattern pattern = Pattern.compile(basicPattern);
-        Matcher matcher = pattern.matcher(condition);
-
-        // 查找条件字符串中是否包含符合格式的温度值
-        if(matcher.find()){
-            // 提取匹配到的温度数值
-            int targetTemp = Integer.parseInt(matcher.group(1));
-            // 检查设备是否为空调类型，并获取其目标温度进行比较
-            if(device instanceof AirConditioner){
-                AirConditioner ac = (AirConditioner) device;
-                // 比较空调目标温度与条件中指定的温度是否一致
-                if(ac.getTargetTemp() == targetTemp){
-                    isActive = true;
-                    System.out.println("设备状态触发器已激活");
-                }
-                else{
-                    isActive = false;
-                    System.out.println("设备状态触发器未激活");
-                }
-            }
-        } else {
-            // 如果没有找到匹配的温度条件，则默认不激活
+        Device device = getDevice();
+        if (device == null) {
             isActive = false;
+            return;
         }
+        boolean active = compiledCondition.test(device);
+        isActive = active;
+        EVENTS.publish(active ? "设备状态触发器已激活" : "设备状态触发器未激活");
+    }
+
+    /**
+     * 以发生变化的设备重新判断触发条件并更新触发器状态，由规则索引在设备属性变化时调用
+     * @param device 关联的设备
+     * @return 触发器由未激活变为激活时返回true
+     */
+    synchronized boolean refresh(Device device) {
+        boolean active = compiledCondition.test(device);
+        boolean rising = active && !isActive;
+        isActive = active;
+        return rising;
     }
 
     /**
@@ -71,7 +84,18 @@ public class DeviceStatusTrigger implements Trigger{
      * @return 触发器关联的设备
      */
     public Device getDevice() {
-        return device;
+        if (device != null) {
+            return device;
+        }
+        return HomeSphereSystem.getInstance().getDeviceIndex().findDevice(deviceId);
+    }
+
+    /**
+     * 获取触发器关联的设备ID
+     * @return 设备ID
+     */
+    public int getDeviceId() {
+        return deviceId;
     }
 
     /**
@@ -81,4 +105,12 @@ public class DeviceStatusTrigger implements Trigger{
     public String getCondition() {
         return condition;
     }
+
+    /**
+     * 获取编译后的触发条件
+     * @return 编译后的触发条件
+     */
+    public DeviceCondition getCompiledCondition() {
+        return compiledCondition;
+    }
 }
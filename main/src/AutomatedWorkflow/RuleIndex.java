@@ -0,0 +1,292 @@
+package AutomatedWorkflow;
+
+import DeviceEquipment.Device;
+import DeviceEquipment.DeviceObserver;
+import DeviceEquipment.DeviceProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * 规则索引类，按 (设备ID, 属性) 索引家庭中全部场景的设备状态触发器
+ *
+ * 登记场景时，每个设备状态触发器按其条件引用的每个属性登记一次；设备属性变化时，
+ * 只重新判断登记在该 (设备, 属性) 下的触发器，开销与受影响的触发器数量成正比，
+ * 与家庭中的场景总数无关。触发器由未激活变为激活时将其所在场景提交到
+ * 场景执行服务异步执行（上升沿触发），条件持续满足期间的后续变化不会重复执行场景。
+ *
+ * 索引以观察者身份注册到被引用的设备上；登记场景时尚未加入家庭的设备，
+ * 在加入家庭时由家庭通知索引完成注册。场景的触发器变化后需重新登记该场景。
+ */
+public class RuleIndex implements DeviceObserver {
+    private static final Rule[] NO_RULES = new Rule[0];
+
+    // 按设备ID在家庭中查找设备
+    private final IntFunction<Device> deviceLookup;
+    // (设备ID, 属性) 到规则数组的索引，数组在修改时整体替换，读取不加锁
+    private final Map<Long, Rule[]> rules = new ConcurrentHashMap<>();
+    // 以下字段由 this 保护：每个场景登记的规则、每个设备被引用的规则数与已注册观察者的设备
+    private final Map<AutomationScene, List<Rule>> sceneRules = new HashMap<>();
+    private final Map<Integer, Integer> deviceRuleCounts = new HashMap<>();
+    private final Map<Integer, Device> observedDevices = new HashMap<>();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder firings = new LongAdder();
+
+    /**
+     * 构造函数
+     * @param deviceLookup 按设备ID在家庭中查找设备，设备不存在时返回null
+     */
+    public RuleIndex(IntFunction<Device> deviceLookup) {
+        if (deviceLookup == null) {
+            throw new IllegalArgumentException("设备查找函数不能为空");
+        }
+        this.deviceLookup = deviceLookup;
+    }
+
+    /**
+     * 登记场景中的全部设备状态触发器，已登记的场景先移除原有登记
+     * 触发器的初始状态按设备当前状态确定，登记本身不会执行场景
+     *
+     * 设备查找需要家庭的读锁，而家庭持有写锁时会调用 deviceAdded 等方法进入索引的锁；
+     * 为保证加锁顺序始终是先家庭后索引，设备在进入索引的锁之前查找，持有索引的锁期间不回调家庭。
+     * @param scene 场景
+     * @return 登记的触发器数量
+     */
+    public int register(AutomationScene scene) {
+        Map<Integer, Device> devices = resolveDevices(scene);
+        List<Rule> registered = registerResolved(scene, devices);
+        // 查找之后、登记之前加入家庭的设备不会经 deviceAdded 开始观察，登记后再查找一次
+        for (Rule rule : registered) {
+            int deviceId = rule.trigger.getDeviceId();
+            if (devices.get(deviceId) == null) {
+                Device device = deviceLookup.apply(deviceId);
+                if (device != null) {
+                    attachLate(scene, registered, device);
+                }
+                devices.put(deviceId, device);
+            }
+        }
+        return registered.size();
+    }
+
+    /**
+     * 在不持有索引的锁时查找场景引用的全部设备
+     * @return 设备ID到设备的映射，设备不在家庭中时值为null
+     */
+    private Map<Integer, Device> resolveDevices(AutomationScene scene) {
+        Map<Integer, Device> devices = new HashMap<>();
+        for (Trigger trigger : scene.getTriggers()) {
+            if (trigger instanceof DeviceStatusTrigger) {
+                int deviceId = ((DeviceStatusTrigger) trigger).getDeviceId();
+                if (!devices.containsKey(deviceId)) {
+                    devices.put(deviceId, deviceLookup.apply(deviceId));
+                }
+            }
+        }
+        return devices;
+    }
+
+    private synchronized List<Rule> registerResolved(AutomationScene scene, Map<Integer, Device> devices) {
+        unregister(scene);
+        List<Rule> registered = new ArrayList<>();
+        for (Trigger trigger : scene.getTriggers()) {
+            if (!(trigger instanceof DeviceStatusTrigger)) {
+                continue;
+            }
+            DeviceStatusTrigger statusTrigger = (DeviceStatusTrigger) trigger;
+            Rule rule = new Rule(scene, statusTrigger);
+            int deviceId = statusTrigger.getDeviceId();
+            for (DeviceProperty property : statusTrigger.getCompiledCondition().getProperties()) {
+                rules.compute(key(deviceId, property), (k, current) -> append(current, rule));
+            }
+            registered.add(rule);
+
+            deviceRuleCounts.merge(deviceId, 1, Integer::sum);
+            // 触发器在查找之后才加入场景时，其设备由登记后的再次查找处理
+            Device device = devices.get(deviceId);
+            if (device != null) {
+                statusTrigger.refresh(device);
+                observe(device);
+            }
+        }
+        if (!registered.isEmpty()) {
+            sceneRules.put(scene, registered);
+        }
+        return registered;
+    }
+
+    /**
+     * 登记后才查找到的设备：场景的登记仍然有效时确定相关触发器的初始状态并开始观察该设备
+     */
+    private synchronized void attachLate(AutomationScene scene, List<Rule> registered, Device device) {
+        if (sceneRules.get(scene) != registered) {
+            return;
+        }
+        for (Rule rule : registered) {
+            if (rule.trigger.getDeviceId() == device.getDeviceId()) {
+                rule.trigger.refresh(device);
+            }
+        }
+        observe(device);
+    }
+
+    /**
+     * 移除场景的全部登记，不再被任何规则引用的设备随之取消观察
+     * @param scene 场景
+     * @return 场景此前已登记时返回true
+     */
+    public synchronized boolean unregister(AutomationScene scene) {
+        List<Rule> registered = sceneRules.remove(scene);
+        if (registered == null) {
+            return false;
+        }
+        for (Rule rule : registered) {
+            int deviceId = rule.trigger.getDeviceId();
+            for (DeviceProperty property : rule.trigger.getCompiledCondition().getProperties()) {
+                rules.computeIfPresent(key(deviceId, property), (k, current) -> remove(current, rule));
+            }
+            Integer count = deviceRuleCounts.get(deviceId);
+            if (count == null || count <= 1) {
+                deviceRuleCounts.remove(deviceId);
+                Device device = observedDevices.remove(deviceId);
+                if (device != null) {
+                    device.removeObserver(this);
+                }
+            } else {
+                deviceRuleCounts.put(deviceId, count - 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 设备加入家庭后调用，设备被规则引用时开始观察该设备
+     * @param device 加入家庭的设备
+     */
+    public synchronized void deviceAdded(Device device) {
+        if (deviceRuleCounts.containsKey(device.getDeviceId())) {
+            observe(device);
+        }
+    }
+
+    /**
+     * 设备移出家庭后调用，停止观察该设备，引用该设备的规则保留
+     * @param deviceId 移出家庭的设备ID
+     */
+    public synchronized void deviceRemoved(int deviceId) {
+        Device device = observedDevices.remove(deviceId);
+        if (device != null) {
+            device.removeObserver(this);
+        }
+    }
+
+    /**
+     * 电源状态变化另有 propertyChanged 通知，此处不处理
+     * @param device 状态发生变化的设备对象
+     */
+    @Override
+    public void update(Device device) {
+    }
+
+    /**
+     * 设备属性变化时，只重新判断引用该 (设备, 属性) 的触发器，异步执行由未激活变为激活的触发器所在的场景
+     * @param device 属性发生变化的设备对象
+     * @param property 发生变化的属性
+     */
+    @Override
+    public void propertyChanged(Device device, DeviceProperty property) {
+        Rule[] affected = rules.getOrDefault(key(device.getDeviceId(), property), NO_RULES);
+        for (Rule rule : affected) {
+            evaluations.increment();
+            if (rule.trigger.refresh(device)) {
+                firings.increment();
+                rule.scene.fireAsync();
+            }
+        }
+    }
+
+    /**
+     * 获取已登记的场景数量
+     * @return 场景数量
+     */
+    public synchronized int size() {
+        return sceneRules.size();
+    }
+
+    /**
+     * 获取累计判断触发条件的次数
+     * @return 判断次数
+     */
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    /**
+     * 获取累计执行场景的次数
+     * @return 执行次数
+     */
+    public long getFiringCount() {
+        return firings.sum();
+    }
+
+    private void observe(Device device) {
+        if (observedDevices.putIfAbsent(device.getDeviceId(), device) == null) {
+            device.addObserver(this);
+        }
+    }
+
+    private static Rule[] append(Rule[] current, Rule rule) {
+        if (current == null) {
+            return new Rule[]{rule};
+        }
+        Rule[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = rule;
+        return updated;
+    }
+
+    /**
+     * 从规则数组中移除规则，数组为空时返回null以移除该索引项
+     */
+    private static Rule[] remove(Rule[] current, Rule rule) {
+        int index = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == rule) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return current;
+        }
+        if (current.length == 1) {
+            return null;
+        }
+        Rule[] updated = new Rule[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        return updated;
+    }
+
+    private static long key(int deviceId, DeviceProperty property) {
+        return ((long) deviceId << 32) | property.ordinal();
+    }
+
+    /**
+     * 一条规则：场景中的一个设备状态触发器
+     */
+    private static final class Rule {
+        private final AutomationScene scene;
+        private final DeviceStatusTrigger trigger;
+
+        private Rule(AutomationScene scene, DeviceStatusTrigger trigger) {
+            this.scene = scene;
+            this.trigger = trigger;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package AutomatedWorkflow;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 场景执行句柄类，表示一次已提交、可能尚未完成的场景执行
+ */
+public class SceneExecution {
+    private final AutomationScene scene;
+    private final CompletableFuture<List<CommandResult>> completion;
+    private final boolean suppressed;
+
+    /**
+     * 构造函数
+     * @param scene 场景
+     * @param completion 全部设备动作完成时完成，结果按场景中设备动作的顺序排列
+     */
+    public SceneExecution(AutomationScene scene, CompletableFuture<List<CommandResult>> completion) {
+        this(scene, completion, false);
+    }
+
+    private SceneExecution(AutomationScene scene, CompletableFuture<List<CommandResult>> completion, boolean suppressed) {
+        this.scene = scene;
+        this.completion = completion;
+        this.suppressed = suppressed;
+    }
+
+    /**
+     * 构造一个被级联保护抑制、没有执行任何设备动作的场景执行句柄
+     * @param scene 场景
+     * @return 已完成且结果为空的场景执行句柄
+     */
+    public static SceneExecution suppressed(AutomationScene scene) {
+        return new SceneExecution(scene, CompletableFuture.completedFuture(Collections.emptyList()), true);
+    }
+
+    /**
+     * 判断本次执行是否被级联保护抑制
+     * @return 被抑制时返回true
+     */
+    public boolean isSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * 获取场景
+     * @return 场景
+     */
+    public AutomationScene getScene() {
+        return scene;
+    }
+
+    /**
+     * 获取完成通知，可用于注册完成后的回调
+     * @return 全部设备动作完成时完成的 CompletableFuture
+     */
+    public CompletableFuture<List<CommandResult>> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * 判断全部设备动作是否已执行完毕
+     * @return 执行完毕时返回true
+     */
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * 等待全部设备动作执行完毕
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 各设备动作的执行结果，按场景中设备动作的顺序排列
+     * @throws InterruptedException 等待期间线程被中断时抛出
+     * @throws TimeoutException 超时仍未执行完毕时抛出
+     */
+    public List<CommandResult> await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        try {
+            return completion.get(timeout, unit);
+        } catch (ExecutionException e) {
+            // 单个设备动作的异常已记录在结果中，完成通知本身不会异常完成
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 判断全部设备动作是否都执行成功，尚未执行完毕时返回false
+     * @return 全部成功时返回true
+     */
+    public boolean isSucceeded() {
+        if (!completion.isDone()) {
+            return false;
+        }
+        for (CommandResult result : completion.join()) {
+            if (!result.isSucceeded()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+package AutomatedWorkflow;
+
+import AutomatedWorkflow.DeviceCommand.DeviceCommand;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 场景执行服务类，在后台线程中异步执行场景的设备动作
+ *
+ * 提交的设备动作先由 CommandPlanner 按设备分组并合并，每个设备的一批设备动作作为一个任务排入该设备的串行队列，
+ * 同一设备的任务按提交顺序依次执行，不同设备的任务并行执行，每批只记录一条运行日志；
+ * 一个设备动作失败不影响其他设备动作，失败信息记录在执行结果中。
+ * 运行环境支持虚拟线程时每个设备动作使用一个虚拟线程，否则使用按需创建的守护线程池，
+ * 设备动作阻塞时不占用调用线程，也不阻塞设备通知链上的其他观察者。
+ * 提交时的级联上下文随设备动作传递到执行线程，设备动作引发的场景由 CascadeGuard 检查。
+ * 执行线程是守护线程，导出日志或退出程序前应调用 awaitIdle 或 shutdown 等待已提交的设备动作执行完毕。
+ */
+public class SceneExecutionService {
+    private static volatile SceneExecutionService instance;
+    private static final CompletableFuture<CommandResult[]> DONE = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    // 每个设备队列中最后一批设备动作，完成后若仍是最后一批则移除
+    private final Map<Integer, CompletableFuture<CommandResult[]>> deviceTails = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数，优先使用虚拟线程
+     */
+    public SceneExecutionService() {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newDaemonThreadPool();
+    }
+
+    /**
+     * 构造函数，使用指定的线程池
+     * @param executor 执行设备动作的线程池
+     */
+    public SceneExecutionService(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("线程池不能为空");
+        }
+        this.executor = executor;
+        this.virtualThreads = false;
+    }
+
+    /**
+     * 获取场景执行服务的默认实例
+     * @return 场景执行服务
+     */
+    public static SceneExecutionService getInstance() {
+        if (instance == null) {
+            synchronized (SceneExecutionService.class) {
+                if (instance == null) {
+                    instance = new SceneExecutionService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 提交场景的全部设备动作
+     * @param scene 场景
+     * @return 场景执行句柄
+     */
+    public SceneExecution submit(AutomationScene scene) {
+        return submit(scene, scene.getCommands());
+    }
+
+    /**
+     * 提交场景的指定设备动作，以调用线程当前的级联为父级
+     * @param scene 场景
+     * @param commands 设备动作列表
+     * @return 场景执行句柄，结果按设备动作列表的顺序排列
+     */
+    public SceneExecution submit(AutomationScene scene, List<DeviceCommand> commands) {
+        return submit(scene, commands, CascadeGuard.getInstance().enter(scene));
+    }
+
+    /**
+     * 提交场景的指定设备动作，合并后每个设备的一批设备动作排在其设备队列的末尾
+     * @param scene 场景
+     * @param commands 设备动作列表
+     * @param context 本次执行的级联上下文，在执行设备动作的线程中生效
+     * @return 场景执行句柄，结果按设备动作列表的顺序排列，被合并或跳过的设备动作也有对应的结果
+     */
+    public SceneExecution submit(AutomationScene scene, List<DeviceCommand> commands, CascadeGuard.Context context) {
+        List<DeviceCommand> snapshot = new ArrayList<>(commands);
+        List<CommandPlanner.Batch> batches = CommandPlanner.plan(snapshot);
+        List<CompletableFuture<CommandResult[]>> futures = new ArrayList<>(batches.size());
+        for (CommandPlanner.Batch batch : batches) {
+            futures.add(enqueue(batch, context));
+        }
+        CompletableFuture<List<CommandResult>> completion = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            CommandResult[] results = new CommandResult[snapshot.size()];
+            for (int i = 0; i < batches.size(); i++) {
+                batches.get(i).collect(futures.get(i).join(), results);
+            }
+            return Arrays.asList(results);
+        });
+        return new SceneExecution(scene, completion);
+    }
+
+    /**
+     * 判断是否使用虚拟线程执行设备动作
+     * @return 使用虚拟线程时返回true
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 获取尚有设备动作未执行完毕的设备数量
+     * @return 设备数量
+     */
+    public int getBusyDeviceCount() {
+        return deviceTails.size();
+    }
+
+    /**
+     * 等待已提交的设备动作执行完毕，等待期间新提交的设备动作（例如级联触发的场景）
+     * 以及级联保护尚未提交的尾随执行也一并等待
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 全部执行完毕时返回true，超时返回false
+     * @throws InterruptedException 等待期间线程被中断时抛出
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        CascadeGuard guard = CascadeGuard.getInstance();
+        while (!deviceTails.isEmpty() || guard.getPendingTrailingCount() > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            if (deviceTails.isEmpty()) {
+                // 尾随执行在防抖窗口结束时才提交，窗口通常只有几十到几百毫秒
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(1)));
+                continue;
+            }
+            CompletableFuture<?>[] tails = deviceTails.values().toArray(new CompletableFuture<?>[0]);
+            try {
+                CompletableFuture.allOf(tails).get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // 设备动作的异常已记录在执行结果中，此处只等待完成
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 停止接收新的场景，并等待已提交的设备动作执行完毕
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 全部执行完毕时返回true
+     * @throws InterruptedException 等待期间线程被中断时抛出
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 将一批设备动作排在其设备队列的末尾，前一批设备动作无论成败，完成后才执行本批设备动作
+     */
+    private CompletableFuture<CommandResult[]> enqueue(CommandPlanner.Batch batch, CascadeGuard.Context context) {
+        int deviceId = batch.getDevice().getDeviceId();
+        CompletableFuture<CommandResult[]> future = deviceTails.compute(deviceId, (id, tail) ->
+                (tail == null ? DONE : tail).handleAsync((result, error) -> run(batch, context), executor));
+        future.whenComplete((result, error) -> deviceTails.remove(deviceId, future));
+        return future;
+    }
+
+    /**
+     * 在级联上下文中执行一批设备动作并记录运行日志，异常记录在执行结果中
+     */
+    private static CommandResult[] run(CommandPlanner.Batch batch, CascadeGuard.Context context) {
+        CascadeGuard guard = CascadeGuard.getInstance();
+        CascadeGuard.Context previous = guard.install(context);
+        try {
+            return batch.execute();
+        } finally {
+            guard.restore(previous);
+        }
+    }
+
+    /**
+     * 运行环境支持虚拟线程（Java 21 及以上）时创建每个任务一个虚拟线程的线程池
+     * @return 线程池，不支持虚拟线程时返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newDaemonThreadPool() {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "scene-executor-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
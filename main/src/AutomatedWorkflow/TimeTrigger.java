@@ -1,26 +1,78 @@
 package AutomatedWorkflow;
 
+import Common.EventDispatcher;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.TextStyle;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  *  TimeTrigger 类，继承自 Trigger 接口
+ *
+ *  时间表达式与活动日期在构造时编译：活动日期编译为星期位掩码（星期一为第 0 位），
+ *  时间表达式编译为若干个以一天中的分钟数表示的闭区间，评估时只做整数比较，不分配内存。
+ *  时间表达式形如 "08:00~18:30"，多个时间段以 "、" 或 "," 分隔；结束时间早于开始时间的
+ *  时间段跨越午夜，午夜之后的部分属于活动日期的次日。
+ *  活动日期形如 "星期一、星期三"，同时接受 "周一"、"Monday"、"Mon" 与默认区域设置下的星期名称。
  */
 public class TimeTrigger implements Trigger{
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
+    // 星期名称到 DayOfWeek 的映射，英文名称以小写存储
+    private static final Map<String, DayOfWeek> DAY_NAMES = new HashMap<>();
+
+    static {
+        Locale[] locales = {Locale.CHINA, Locale.ENGLISH, Locale.getDefault()};
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Locale locale : locales) {
+                DAY_NAMES.put(day.getDisplayName(TextStyle.FULL, locale).toLowerCase(Locale.ROOT), day);
+                DAY_NAMES.put(day.getDisplayName(TextStyle.SHORT, locale).toLowerCase(Locale.ROOT), day);
+            }
+        }
+        DAY_NAMES.put("星期天", DayOfWeek.SUNDAY);
+        DAY_NAMES.put("周天", DayOfWeek.SUNDAY);
+    }
+
     private String timeExpr;
     private String activeDays;
-    private boolean isActive;
+    private volatile boolean isActive;
+
+    // 编译结果：活动星期位掩码
+    private final int dayMask;
+    // 编译结果：各时间段的起止分钟（均包含）
+    private final int[] startMinutes;
+    private final int[] endMinutes;
 
     /**
-     *  构造函数
+     *  构造函数，编译时间表达式与活动日期
      * @param timeExpr 时间表达式
      * @param activeDays 活动时间段
+     * @throws IllegalArgumentException 时间表达式或活动日期格式有误时抛出异常
      */
     public TimeTrigger(String timeExpr, String activeDays) {
+        if (timeExpr == null || activeDays == null) {
+            throw new IllegalArgumentException("时间参数有误！");
+        }
         this.timeExpr = timeExpr;
         this.activeDays = activeDays;
+        this.dayMask = compileDays(activeDays);
+
+        String[] ranges = timeExpr.split("[、,，]");
+        this.startMinutes = new int[ranges.length];
+        this.endMinutes = new int[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            String[] times = ranges[i].split("~");
+            if (times.length != 2) {
+                throw new IllegalArgumentException("时间参数有误！");
+            }
+            startMinutes[i] = parseMinute(times[0]);
+            endMinutes[i] = parseMinute(times[1]);
+        }
     }
 
     /**
@@ -33,52 +85,97 @@ public class TimeTrigger implements Trigger{
 
     /**
      * 评估时间触发器是否应该被激活
-     * 该方法会解析activeDays和timeExpr属性，判断当前时间是否满足激活条件
+     * 按当前的本地日期与时间判断是否落在某个活动日期的时间段内
      */
     @Override
     public void evaluate(){
-        try{
-            // 解析激活日期和时间范围
-            String[] dates = activeDays.split("、");
-            String[] times = timeExpr.split("~");
-            if(dates.length < 4 || times.length != 2){
-                throw new IllegalArgumentException("时间参数有误！");
-            }
-
-            LocalDate now = LocalDate.now();
-            String datOfWeek = now.getDayOfWeek().getDisplayName(TextStyle.FULL , Locale.getDefault());
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
+        LocalDateTime now = LocalDateTime.now();
+        evaluateAt(now.getDayOfWeek().getValue(), now.getHour() * 60 + now.getMinute());
+    }
 
-            boolean isActive = false;
+    /**
+     * 按指定的星期与时间评估触发器并更新其状态
+     * 批量评估大量触发器时，调用方只需计算一次星期与分钟数
+     * @param dayOfWeek 星期，1 表示星期一，7 表示星期日
+     * @param minuteOfDay 一天中的分钟数，0 到 1439
+     */
+    public void evaluateAt(int dayOfWeek, int minuteOfDay) {
+        boolean active = isActiveAt(dayOfWeek, minuteOfDay);
+        boolean previous = isActive;
+        isActive = active;
+        // 只在状态变化时输出日志，大量触发器逐刻评估时不产生输出
+        if (active != previous && EVENTS.isEnabled()) {
+            EVENTS.publish(active ? "时间触发器已激活" : "时间触发器未激活");
+        }
+    }
 
-            // 遍历所有激活日期和时间范围，判断当前时间是否满足条件
-            for(String date : dates){
-                if(datOfWeek.equals(date)){
-                    LocalDate startTime = LocalDate.parse(times[0], formatter);
-                    LocalDate endTime = LocalDate.parse(times[1], formatter);
-                    if(now.isAfter(startTime) && now.isBefore(endTime)){
-                        isActive = true;
-                        break;
-                    }
+    /**
+     * 判断指定的星期与时间是否满足激活条件，不修改触发器状态
+     * @param dayOfWeek 星期，1 表示星期一，7 表示星期日
+     * @param minuteOfDay 一天中的分钟数，0 到 1439
+     * @return 满足激活条件时返回true
+     */
+    public boolean isActiveAt(int dayOfWeek, int minuteOfDay) {
+        int today = 1 << (dayOfWeek - 1);
+        // 前一天的位，星期一的前一天为星期日
+        int yesterday = dayOfWeek == 1 ? 1 << 6 : today >>> 1;
+        boolean activeToday = (dayMask & today) != 0;
+        boolean activeYesterday = (dayMask & yesterday) != 0;
+        for (int i = 0; i < startMinutes.length; i++) {
+            int start = startMinutes[i];
+            int end = endMinutes[i];
+            if (start <= end) {
+                if (activeToday && minuteOfDay >= start && minuteOfDay <= end) {
+                    return true;
                 }
+            } else if ((activeToday && minuteOfDay >= start) || (activeYesterday && minuteOfDay <= end)) {
+                // 跨越午夜的时间段：当天开始时间之后，或前一天开始、延续到今天结束时间之前
+                return true;
             }
+        }
+        return false;
+    }
 
-            // 根据评估结果设置触发器状态并输出日志
-            if(isActive) {
-                System.out.println("时间触发器已激活");
-                this.isActive = true;
+    /**
+     * 计算指定时刻之后下一个时间段开始（激活边沿）的时刻
+     * @param fromMillis 起始时刻（毫秒），不包含该时刻本身
+     * @param zone 用于换算星期与时间的时区
+     * @return 下一个激活边沿的时刻（毫秒），没有活动日期时返回 -1
+     */
+    public long nextActivation(long fromMillis, ZoneId zone) {
+        if (dayMask == 0) {
+            return -1;
+        }
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(fromMillis), zone);
+        LocalDate date = from.toLocalDate();
+        // 边沿精确到分钟，起始时刻所在分钟的边沿已经过去或恰好就是起始时刻，均不计入
+        int fromMinute = from.getHour() * 60 + from.getMinute();
+        // 最多向后查找 7 天即可覆盖每个活动日期
+        for (int offset = 0; offset <= 7; offset++) {
+            LocalDate day = date.plusDays(offset);
+            if ((dayMask & (1 << (day.getDayOfWeek().getValue() - 1))) == 0) {
+                continue;
             }
-            else {
-                System.out.println("时间触发器未激活");
-                this.isActive = false;
+            int best = -1;
+            for (int start : startMinutes) {
+                if ((offset > 0 || start > fromMinute) && (best < 0 || start < best)) {
+                    best = start;
+                }
+            }
+            if (best >= 0) {
+                return day.atTime(best / 60, best % 60).atZone(zone).toInstant().toEpochMilli();
             }
         }
-        catch (IllegalArgumentException e){
-            System.out.println(e.getMessage());
-        }
+        return -1;
     }
 
+    /**
+     * 获取活动星期位掩码，星期一为第 0 位，星期日为第 6 位
+     * @return 位掩码
+     */
+    public int getDayMask() {
+        return dayMask;
+    }
 
     /**
      * 获取时间表达式
@@ -95,4 +192,43 @@ public class TimeTrigger implements Trigger{
     public String getActiveDays() {
         return activeDays;
     }
+
+    /**
+     * 将活动日期编译为星期位掩码
+     * @param activeDays 活动日期
+     * @return 位掩码
+     */
+    private static int compileDays(String activeDays) {
+        int mask = 0;
+        for (String name : activeDays.split("[、,，]")) {
+            DayOfWeek day = DAY_NAMES.get(name.trim().toLowerCase(Locale.ROOT));
+            if (day == null) {
+                throw new IllegalArgumentException("时间参数有误！无法识别的日期：" + name);
+            }
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return mask;
+    }
+
+    /**
+     * 将 "HH:mm" 格式的时间解析为一天中的分钟数
+     * @param time 时间
+     * @return 分钟数
+     */
+    private static int parseMinute(String time) {
+        String[] parts = time.trim().split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("时间参数有误！无法识别的时间：" + time);
+        }
+        try {
+            int hour = Integer.parseInt(parts[0]);
+            int minute = Integer.parseInt(parts[1]);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                throw new IllegalArgumentException("时间参数有误！无法识别的时间：" + time);
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("时间参数有误！无法识别的时间：" + time);
+        }
+    }
 }
@@ -0,0 +1,245 @@
+package AutomatedWorkflow;
+
+import Common.EventDispatcher;
+import Common.HierarchicalTimingWheel;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 触发器调度类，在时间触发器的激活边沿执行场景
+ *
+ * 注册场景时，为其中每个时间触发器计算下一个时间段开始的时刻，放入分层时间轮；
+ * 时间推进到该时刻时执行场景的设备动作，再计算并放入该触发器的下一个激活边沿。
+ * 场景只在时间段开始时执行一次，不再依赖轮询 AutomationScene.execute，
+ * 开销与实际触发的次数成正比，与注册的触发器数量和轮询频率无关。
+ * 注册时已处于某个时间段内的触发器，从下一个时间段开始时触发。
+ *
+ * 可调用 start 由后台线程按刻度推进时间，也可调用 advanceTo 手动推进。
+ * 家庭加入与移除场景时在默认实例上登记与取消登记，系统启动时调用 start，退出时调用 stop。
+ */
+public class TriggerScheduler {
+    // 默认刻度长度（毫秒）
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+
+    private static volatile TriggerScheduler instance;
+    private static final EventDispatcher EVENTS = EventDispatcher.getInstance();
+
+    private final ZoneId zone;
+    private final HierarchicalTimingWheel<Registration> wheel;
+    // 每个场景已注册的触发器，由 this 保护
+    private final Map<AutomationScene, List<Registration>> registrations = new HashMap<>();
+    private ScheduledExecutorService executor;
+    private long firedCount;
+
+    /**
+     * 构造函数，使用默认刻度与系统默认时区，从当前时刻开始计时
+     */
+    public TriggerScheduler() {
+        this(DEFAULT_TICK_MILLIS, ZoneId.systemDefault(), System.currentTimeMillis());
+    }
+
+    /**
+     * 构造函数
+     * @param tickMillis 刻度长度（毫秒），场景最多延迟一个刻度执行
+     * @param zone 用于换算星期与时间的时区
+     * @param startMillis 起始时刻（毫秒）
+     */
+    public TriggerScheduler(long tickMillis, ZoneId zone, long startMillis) {
+        if (zone == null) {
+            throw new IllegalArgumentException("时区不能为空");
+        }
+        this.zone = zone;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, startMillis);
+    }
+
+    /**
+     * 获取触发器调度的默认实例
+     * @return 触发器调度
+     */
+    public static TriggerScheduler getInstance() {
+        if (instance == null) {
+            synchronized (TriggerScheduler.class) {
+                if (instance == null) {
+                    instance = new TriggerScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 注册场景中的全部时间触发器，已注册的场景先取消原有注册
+     * @param scene 场景
+     * @return 注册的时间触发器数量
+     */
+    public synchronized int register(AutomationScene scene) {
+        unregister(scene);
+        List<Registration> list = new ArrayList<>();
+        long now = wheel.currentMillis();
+        for (Trigger trigger : scene.getTriggers()) {
+            if (trigger instanceof TimeTrigger) {
+                Registration registration = new Registration(scene, (TimeTrigger) trigger);
+                list.add(registration);
+                scheduleNext(registration, now);
+            }
+        }
+        if (!list.isEmpty()) {
+            registrations.put(scene, list);
+        }
+        return list.size();
+    }
+
+    /**
+     * 取消场景的全部注册
+     * @param scene 场景
+     * @return 场景此前已注册时返回true
+     */
+    public synchronized boolean unregister(AutomationScene scene) {
+        List<Registration> list = registrations.remove(scene);
+        if (list == null) {
+            return false;
+        }
+        for (Registration registration : list) {
+            registration.cancelled = true;
+            if (registration.timeout != null) {
+                registration.timeout.cancel();
+                registration.timeout = null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将时间推进到指定时刻，执行其间到达激活边沿的场景
+     * 场景提交到场景执行服务异步执行，不阻塞调度线程
+     * 单个场景提交失败时输出提示并继续提交其余场景，到期的注册无论成败都计算下一个边沿
+     * @param nowMillis 当前时刻（毫秒）
+     * @return 执行的场景次数
+     */
+    public int advanceTo(long nowMillis) {
+        List<Registration> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(nowMillis, due::add);
+            for (Registration registration : due) {
+                registration.timeout = null;
+            }
+        }
+        int fired = 0;
+        try {
+            for (Registration registration : due) {
+                try {
+                    registration.scene.fireAsync();
+                    fired++;
+                } catch (RuntimeException e) {
+                    publish("场景 " + registration.scene.getSceneId() + " 定时执行失败：" + e.getMessage());
+                }
+            }
+        } finally {
+            synchronized (this) {
+                for (Registration registration : due) {
+                    // 提交期间被取消的注册不再计算下一个边沿
+                    if (!registration.cancelled) {
+                        scheduleNext(registration, registration.edge);
+                    }
+                }
+                firedCount += fired;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * 启动后台线程，每个刻度按系统时间推进一次
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trigger-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = wheel.getTickMillis();
+        executor.scheduleAtFixedRate(this::tick, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 后台线程的一次推进，异常逃出周期任务会使线程池取消后续全部刻度，因此在此处截获
+     */
+    private void tick() {
+        try {
+            advanceTo(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            publish("触发器调度推进失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止后台线程，已注册的触发器保留，再次启动后继续调度
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * 获取等待激活边沿的触发器数量
+     * @return 触发器数量
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    /**
+     * 获取累计执行的场景次数
+     * @return 执行次数
+     */
+    public synchronized long getFiredCount() {
+        return firedCount;
+    }
+
+    /**
+     * 计算并放入触发器在指定时刻之后的下一个激活边沿，没有边沿时不再调度
+     */
+    private void scheduleNext(Registration registration, long fromMillis) {
+        long edge = registration.trigger.nextActivation(fromMillis, zone);
+        if (edge < 0) {
+            return;
+        }
+        registration.edge = edge;
+        registration.timeout = wheel.schedule(edge, registration);
+    }
+
+    private static void publish(String event) {
+        if (EVENTS.isEnabled()) {
+            EVENTS.publish(event);
+        }
+    }
+
+    /**
+     * 场景中一个时间触发器的注册信息
+     */
+    private static final class Registration {
+        private final AutomationScene scene;
+        private final TimeTrigger trigger;
+        // 当前等待的激活边沿
+        private long edge;
+        private HierarchicalTimingWheel.Timeout<Registration> timeout;
+        private boolean cancelled;
+
+        private Registration(AutomationScene scene, TimeTrigger trigger) {
+            this.scene = scene;
+            this.trigger = trigger;
+        }
+    }
+}
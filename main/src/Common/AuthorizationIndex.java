@@ -0,0 +1,128 @@
+package Common;
+
+import UserAndHousehold.Household;
+import UserAndHousehold.Membership;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 授权索引类，记录每个用户在每个家庭中的角色
+ *
+ * 以 (用户ID, 家庭ID) 为键、角色位集合为值，权限检查只需一次查找，不再遍历家庭成员。
+ * 家庭加入系统时整体登记其全部成员，此后由 Household.addUser/removeUser 与
+ * Membership.setRole 同步维护；家庭移出系统时移除其全部成员的登记。
+ */
+public class AuthorizationIndex {
+    // 角色位：家庭成员（任意角色）
+    public static final int MEMBER = 1;
+    // 角色位：家庭管理员
+    public static final int ADMIN = 1 << 1;
+    // 角色位：户主
+    public static final int OWNER = 1 << 2;
+
+    private static final String OWNER_ROLE = "owner";
+
+    private final Map<Long, Integer> roles = new ConcurrentHashMap<>();
+
+    /**
+     * 将角色名称转换为角色位集合
+     * @param role 角色名称
+     * @return 角色位集合，任意角色都包含 MEMBER
+     */
+    public static int bitsOf(String role) {
+        int bits = MEMBER;
+        if (HomeSphereSystem.MANAGE_USER_ROLE.equals(role)) {
+            bits |= ADMIN;
+        } else if (OWNER_ROLE.equals(role)) {
+            bits |= OWNER;
+        }
+        return bits;
+    }
+
+    /**
+     * 获取用户在家庭中的角色位集合
+     * @param userId 用户ID
+     * @param householdId 家庭ID
+     * @return 角色位集合，用户不是家庭成员时返回0
+     */
+    public int roles(int userId, int householdId) {
+        Integer bits = roles.get(key(userId, householdId));
+        return bits == null ? 0 : bits;
+    }
+
+    /**
+     * 判断用户是否为家庭成员
+     * @param userId 用户ID
+     * @param householdId 家庭ID
+     * @return 是家庭成员时返回true
+     */
+    public boolean isMember(int userId, int householdId) {
+        return roles.containsKey(key(userId, householdId));
+    }
+
+    /**
+     * 判断用户是否为家庭管理员
+     * @param userId 用户ID
+     * @param householdId 家庭ID
+     * @return 是家庭管理员时返回true
+     */
+    public boolean isAdmin(int userId, int householdId) {
+        return (roles(userId, householdId) & ADMIN) != 0;
+    }
+
+    /**
+     * 登记或更新用户在家庭中的角色
+     * @param userId 用户ID
+     * @param householdId 家庭ID
+     * @param role 角色名称
+     */
+    public void grant(int userId, int householdId, String role) {
+        roles.put(key(userId, householdId), bitsOf(role));
+    }
+
+    /**
+     * 移除用户在家庭中的角色登记
+     * @param userId 用户ID
+     * @param householdId 家庭ID
+     */
+    public void revoke(int userId, int householdId) {
+        roles.remove(key(userId, householdId));
+    }
+
+    /**
+     * 登记家庭的全部成员，并使家庭此后的成员变更同步到索引
+     * @param household 家庭
+     */
+    public void attach(Household household) {
+        household.attachAuthorizationIndex(this);
+    }
+
+    /**
+     * 移除家庭全部成员的登记，此后家庭的成员变更不再同步到索引
+     * @param household 家庭
+     */
+    public void detach(Household household) {
+        household.detachAuthorizationIndex();
+    }
+
+    /**
+     * 登记成员资格对应的角色，由家庭在成员变更时调用
+     * @param membership 成员资格
+     */
+    public void grant(Membership membership) {
+        grant(membership.getUser().getUserId(), membership.getHousehold().getHouseholdId(), membership.getRole());
+    }
+
+    /**
+     * 获取已登记的 (用户, 家庭) 数量
+     * @return 登记数量
+     */
+    public int size() {
+        return roles.size();
+    }
+
+    private static long key(int userId, int householdId) {
+        return ((long) userId << 32) | (householdId & 0xFFFFFFFFL);
+    }
+}
@@ -3,10 +3,12 @@ package Common;
 import AutomatedWorkflow.AutomationScene;
 import AutomatedWorkflow.DeviceAction;
 import AutomatedWorkflow.DeviceCommand.DeviceCommand;
+import AutomatedWorkflow.SceneExecutionService;
 import DeviceEquipment.*;
 import EmissionReduction.RunningLog;
 import EmissionReduction.RunningLogFormatter;
 import NormalException.CannotFindException;
+import NormalException.InvalidUserException;
 import NormalException.NotAdminException;
 import UserAndHousehold.Household;
 import UserAndHousehold.Membership;
@@ -14,11 +16,12 @@ import UserAndHousehold.Room;
 import UserAndHousehold.User;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 命令行界面控制类，负责处理用户输入的各种指令并调用相应系统功能
@@ -33,7 +36,15 @@ public class Command {
     private static final Manufacturer DEFAULT_BATHROOM_SCALE_MANUFACTURER =
             new Manufacturer(4 , "Scale" , "Wi-Fi");
 
+    // 导出目录与导出缓冲区的总量上限
+    private static final String EXPORT_DIRECTORY = "./data";
+    private static final long EXPORT_MEMORY_BUDGET = 16L * HouseholdExporter.BUFFER_SIZE;
+    // 导出或退出前等待场景执行完毕的最长时间（秒）
+    private static final long SCENE_DRAIN_SECONDS = 10;
+
     public static HomeSphereSystem system = HomeSphereSystem.getInstance();
+    // 当前命令行的登录会话，所有需要身份的操作以该会话作为调用上下文
+    public static Session session;
     public static Scanner scanner = new Scanner(System.in);
 
     /**
@@ -48,9 +59,15 @@ public class Command {
         System.out.print("请输入密码：");
         String password = scanner.next();
 
+        // 重新登录前注销当前会话，避免旧会话滞留在会话管理中
+        if (session != null) {
+            system.getSessionManager().close(session);
+            session = null;
+        }
+
         // 尝试执行用户登录操作
         try{
-            system.login(username, password);
+            session = system.login(username, password);
             System.out.println("User " + username + " logged in");
             return true;
         }
@@ -101,7 +118,7 @@ public class Command {
 
         // 尝试添加家庭信息到系统
         try{
-            if(!system.getCurrentUser().getLoginName().equals(HomeSphereSystem.SUPER_USER_NAME)){
+            if(!system.requireUser(session).getLoginName().equals(HomeSphereSystem.SUPER_USER_NAME)){
                 throw new NotAdminException("非超级管理员无权创建家庭");
             }
 
@@ -120,6 +137,20 @@ public class Command {
         }
     }
 
+    /**
+     * 校验当前会话并获取登录用户，会话无效时输出提示信息
+     * @return 登录用户，会话无效或已过期时返回null
+     */
+    private static User requireCurrentUser() {
+        try{
+            return system.requireUser(session);
+        }
+        catch(InvalidUserException e){
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 列出家庭列表
      * 超级管理员可以看到所有家庭，普通用户只能看到自己所属的家庭
@@ -127,9 +158,13 @@ public class Command {
     public static void listHousehold() {
         System.out.println();
         System.out.println("=== 家庭列表 ===");
+        User currentUser = requireCurrentUser();
+        if(currentUser == null){
+            return;
+        }
 
         // 判断当前用户是否为超级管理员
-        if(system.getCurrentUser().getLoginName().equals(HomeSphereSystem.SUPER_USER_NAME)){
+        if(currentUser.getLoginName().equals(HomeSphereSystem.SUPER_USER_NAME)){
             // 超级管理员显示所有家庭
             for (Household household : system.getHouseholds()) {
                 System.out.println(household);
@@ -137,7 +172,7 @@ public class Command {
         }
         else{
             // 其他用户只显示自己所属的家庭
-            for (Membership membership: system.getCurrentUser().getMemberships()) {
+            for (Membership membership: currentUser.getMemberships()) {
                 System.out.println(membership.getHousehold());
             }
         }
@@ -168,7 +203,7 @@ public class Command {
             }
 
             // 判断当前用户是否为管理员
-            household.isAdminUser(system.getCurrentUser().getUserId());
+            household.isAdminUser(system.requireUser(session).getUserId());
 
             System.out.print("请输入角色：");
             String role = scanner.next();
@@ -191,9 +226,13 @@ public class Command {
     public static void listUserInHousehold() {
         System.out.println();
         System.out.println("=== 家庭成员列表 ===");
+        User currentUser = requireCurrentUser();
+        if(currentUser == null){
+            return;
+        }
 
         // 判断当前用户是否为超级管理员
-        if(system.getCurrentUser().getLoginName().equals(HomeSphereSystem.SUPER_USER_NAME)){
+        if(currentUser.getLoginName().equals(HomeSphereSystem.SUPER_USER_NAME)){
             // 超级管理员：遍历所有家庭并显示每个家庭的成员信息
             for(Household household : system.getHouseholds()){
                 System.out.println("家庭ID：" + household.getHouseholdId() + ", 家庭地址：" + household.getAddress());
@@ -205,7 +244,7 @@ public class Command {
         }
         else{
             // 其他用户：只显示当前用户所在家庭的成员信息
-            for(Membership membership : system.getCurrentUser().getMemberships()){
+            for(Membership membership : currentUser.getMemberships()){
                 Household household = membership.getHousehold();
                 System.out.println("家庭ID：" + household.getHouseholdId() + ", 家庭地址：" + household.getAddress());
                 for(Membership member : household.getMemberships()){
@@ -232,7 +271,7 @@ public class Command {
             }
 
             // 判断当前用户是否为管理员或超级用户
-            household.isAdminUser(system.getCurrentUser().getUserId());
+            household.isAdminUser(system.requireUser(session).getUserId());
 
             System.out.print("请输入设备名称：");
             String name = scanner.next();
@@ -244,11 +283,8 @@ public class Command {
             Room room = household.findRoomById(roomId);
             if(room == null) {throw new CannotFindException("房间不存在！");}
 
-            // 获取当前家庭中所有设备的最大ID，并加1作为新设备ID
-            int deviceId = household.listAllDevices().stream()
-                .mapToInt(Device::getDeviceId)
-                .max()
-                .orElse(0) + 1;
+            // 设备ID在整个系统范围内唯一，由ID分配服务分配
+            int deviceId = system.getIdAllocationService().next(IdAllocationService.Entity.DEVICE);
 
             // 根据设备类型创建设备对象并添加到房间中
             switch (type){
@@ -304,23 +340,19 @@ public class Command {
             }
 
             // 判断当前用户是否为管理员或超级用户
-            household.isAdminUser(system.getCurrentUser().getUserId());
+            household.isAdminUser(system.requireUser(session).getUserId());
 
             System.out.print("请输入要移除的设备ID：");
             int deviceId = scanner.nextInt();
             scanner.nextLine();
 
-            Device device = household.findDeviceById(deviceId);
-            if(device == null) {
+            // 通过全局设备索引直接定位设备所在房间
+            DeviceLocation location = system.locateDevice(deviceId);
+            if(location == null || location.getHousehold() != household) {
                 throw new CannotFindException("设备不存在！");
             }
-            for(Room room : household.getRooms()){
-                if(room.findDeviceById(deviceId) != null){
-                    room.removeDevice(deviceId);
-                    System.out.println("移除设备成功：" + device);
-                    return;
-                }
-            }
+            location.getRoom().removeDevice(deviceId);
+            System.out.println("移除设备成功：" + location.getDevice());
         }
         catch(Exception e){
             System.out.println(e.getMessage());
@@ -361,7 +393,7 @@ public class Command {
             }
 
             // 验证当前用户是否为管理员
-            household.isAdminUser(system.getCurrentUser().getUserId());
+            household.isAdminUser(system.requireUser(session).getUserId());
 
             // 获取场景名称和描述
             System.out.print("请输入场景名称：");
@@ -370,7 +402,7 @@ public class Command {
             String description = scanner.next();
 
             // 创建新的自动化场景对象
-            AutomationScene autoScene = new AutomationScene(household.getAutoScenes().size() + 1, name, description);
+            AutomationScene autoScene = new AutomationScene(household.nextAutoSceneId(), name, description);
 
             System.out.println("当前场景中的设备操作：");
             // 循环添加设备操作到场景中
@@ -381,7 +413,12 @@ public class Command {
                     // 获取设备ID并查找对应设备
                     System.out.print("请输入设备ID：");
                     int deviceId = scanner.nextInt();
-                    Device device = household.findDeviceById(deviceId);
+                    DeviceLocation location = system.locateDevice(deviceId);
+                    if(location == null || location.getHousehold() != household){
+                        System.out.println("设备不存在！");
+                        continue;
+                    }
+                    Device device = location.getDevice();
 
                     // 获取操作命令
                     System.out.print("请输入操作命令(例如powerOn/setTemperature)：");
@@ -462,7 +499,7 @@ public class Command {
         System.out.println();
         System.out.print("请输入家庭ID：");
         int householdId = scanner.nextInt();
-        system.listAutoScenesByHousehold(householdId);
+        system.listAutoScenesByHousehold(session, householdId);
         System.out.println();
     }
 
@@ -546,15 +583,52 @@ public class Command {
      * @param extension 文件扩展名
      */
     public static void saveHouseholdsToFile(RunningLogFormatter formatter, String extension) {
-        for (Household household : Command.system.getHouseholds()) {
-            File file = new File("./data/"+ household.getHouseholdId() + "." + extension);
-            try (FileWriter writer = new FileWriter(file)) {
-                // 先确保文件存在
-                file.createNewFile();
-                writer.write(formatter.format(household));
-                System.out.println("保存 " + extension.toUpperCase() + " 文件成功");
-            } catch (IOException e) {
-                System.out.println("保存 " + extension.toUpperCase() + " 文件失败: " + e.getMessage());
+        Map<String, RunningLogFormatter> formatters = new LinkedHashMap<>();
+        formatters.put(extension, formatter);
+        saveHouseholdsToFiles(formatters);
+    }
+
+    /**
+     * 等待已提交的场景执行完毕，超时后不再等待
+     */
+    public static void awaitScenes() {
+        try {
+            if (!SceneExecutionService.getInstance().awaitIdle(SCENE_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                System.out.println("仍有场景未执行完毕，导出的日志可能不完整");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * 退出程序前停止场景执行服务，等待已提交的场景执行完毕
+     */
+    public static void shutdownScenes() {
+        try {
+            if (!SceneExecutionService.getInstance().shutdown(SCENE_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                System.out.println("仍有场景未执行完毕");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * 将所有家庭数据并行保存为多种格式的文件，结束后按格式输出导出报告
+     * @param formatters 文件扩展名到格式化器的映射
+     */
+    public static void saveHouseholdsToFiles(Map<String, RunningLogFormatter> formatters) {
+        // 异步执行的场景可能仍在写入运行日志，导出前等待其执行完毕
+        awaitScenes();
+        HouseholdExporter exporter = new HouseholdExporter(new File(EXPORT_DIRECTORY),
+                Runtime.getRuntime().availableProcessors(), EXPORT_MEMORY_BUDGET);
+        for (HouseholdExporter.ExportReport report : exporter.export(Command.system.getHouseholds(), formatters)) {
+            System.out.println(report);
+            for (String failure : report.getFailures()) {
+                System.out.println("保存 " + report.getExtension().toUpperCase() + " 文件失败: " + failure);
             }
         }
     }
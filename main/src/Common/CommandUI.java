@@ -7,12 +7,15 @@ import DeviceEquipment.*;
 import EmissionReduction.HtmlRunningLogFormatter;
 import EmissionReduction.JsonRunningLogFormatter;
 import EmissionReduction.RunningLog;
+import EmissionReduction.RunningLogFormatter;
 import EmissionReduction.XmlRunningLogFormatter;
 import UserAndHousehold.Household;
 import UserAndHousehold.Room;
 
 import java.io.*;
 import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Scanner;
 
 import static java.lang.System.exit;
@@ -104,7 +107,8 @@ public class CommandUI {
                         logEnergyMenu();
                         break;
                     case 5:
-                        Command.system.logoff();
+                        Command.system.logoff(Command.session);
+                        Command.session = null;
                         System.out.println();
                         return;
                     default:
@@ -357,13 +361,18 @@ public class CommandUI {
         HtmlRunningLogFormatter htmlFormatter = HtmlRunningLogFormatter.getInstance();
         XmlRunningLogFormatter xmlFormatter = XmlRunningLogFormatter.getInstance();
 
-        // 启动主菜单界面
+        // 启动时间触发器的调度，再启动主菜单界面；退出后不再触发新的场景
+        Command.system.startAutomation();
         mainMenu();
-
-        // 保存为不同格式的文件
-        Command.saveHouseholdsToFile(jsonFormatter, "json");
-        Command.saveHouseholdsToFile(htmlFormatter, "html");
-        Command.saveHouseholdsToFile(xmlFormatter, "xml");
+        Command.system.stopAutomation();
+
+        // 并行保存为不同格式的文件，保存前等待已提交的场景执行完毕
+        Map<String, RunningLogFormatter> formatters = new LinkedHashMap<>();
+        formatters.put("json", jsonFormatter);
+        formatters.put("html", htmlFormatter);
+        formatters.put("xml", xmlFormatter);
+        Command.saveHouseholdsToFiles(formatters);
+        Command.shutdownScenes();
 
     }
 }
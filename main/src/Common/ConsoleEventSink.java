@@ -0,0 +1,28 @@
+package Common;
+
+/**
+ * 控制台事件接收器，在发布线程中将事件同步输出到 System.out
+ */
+public class ConsoleEventSink implements EventSink {
+    private static final ConsoleEventSink INSTANCE = new ConsoleEventSink();
+
+    private ConsoleEventSink() {
+    }
+
+    /**
+     * 获取控制台事件接收器的唯一实例
+     * @return 控制台事件接收器
+     */
+    public static ConsoleEventSink getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 输出事件，每次读取当前的 System.out，重定向标准输出后同样生效
+     * @param event 事件内容
+     */
+    @Override
+    public void publish(String event) {
+        System.out.println(event);
+    }
+}
@@ -0,0 +1,108 @@
+package Common;
+
+import DeviceEquipment.Device;
+import NormalException.RepeatedException;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全局设备索引类，记录系统中每个设备ID对应的设备、房间与家庭
+ *
+ * 家庭加入系统时整体登记其全部设备，此后由 Room.addDevice/removeDevice 与
+ * Household.addRoom/removeRoom 同步维护，任意设备的定位均为 O(1)。
+ * 设备ID在整个系统范围内唯一，登记重复ID时抛出 RepeatedException。
+ * 索引为并发映射，定位设备不加锁；登记时的查重与写入是原子的，不同家庭并发登记同一ID时只有一个成功。
+ */
+public class DeviceIndex {
+    private final Map<Integer, DeviceLocation> locations = new ConcurrentHashMap<>();
+    // 登记设备时同步登记其ID，保证此后分配的设备ID不与之重复
+    private final IdAllocationService idAllocationService;
+
+    /**
+     * 构造函数
+     * @param idAllocationService ID分配服务
+     */
+    public DeviceIndex(IdAllocationService idAllocationService) {
+        this.idAllocationService = idAllocationService;
+    }
+
+    /**
+     * 根据设备ID定位设备
+     * @param deviceId 设备ID
+     * @return 设备位置，设备不存在时返回null
+     */
+    public DeviceLocation locate(int deviceId) {
+        return locations.get(deviceId);
+    }
+
+    /**
+     * 根据设备ID查找设备
+     * @param deviceId 设备ID
+     * @return 设备对象，设备不存在时返回null
+     */
+    public Device findDevice(int deviceId) {
+        DeviceLocation location = locations.get(deviceId);
+        return location == null ? null : location.getDevice();
+    }
+
+    /**
+     * 登记一个设备的位置
+     * @param device 设备
+     * @param room 设备所在房间
+     * @param household 房间所属家庭
+     * @throws RepeatedException 当设备ID已被其他设备占用时抛出
+     */
+    public void put(Device device, Room room, Household household) throws RepeatedException {
+        DeviceLocation location = new DeviceLocation(device, room, household);
+        DeviceLocation existing = locations.putIfAbsent(device.getDeviceId(), location);
+        // 同一设备重新登记时（如移动到其他房间）更新其位置，不能覆盖其他设备
+        while (existing != null) {
+            if (existing.getDevice() != device) {
+                throw new RepeatedException("设备ID已被占用：" + device.getDeviceId());
+            }
+            if (locations.replace(device.getDeviceId(), existing, location)) {
+                break;
+            }
+            existing = locations.putIfAbsent(device.getDeviceId(), location);
+        }
+        idAllocationService.observe(IdAllocationService.Entity.DEVICE, device.getDeviceId());
+    }
+
+    /**
+     * 移除一个设备的登记
+     * @param deviceId 设备ID
+     */
+    public void remove(int deviceId) {
+        locations.remove(deviceId);
+    }
+
+    /**
+     * 登记家庭中的全部设备，并使家庭此后的设备变更同步到索引
+     * 存在与其他家庭重复的设备ID时不做任何修改
+     *
+     * @param household 家庭
+     * @throws RepeatedException 当家庭中的设备ID已被其他设备占用时抛出
+     */
+    public void attach(Household household) throws RepeatedException {
+        household.attachDeviceIndex(this);
+    }
+
+    /**
+     * 移除家庭中全部设备的登记，此后家庭的设备变更不再同步到索引
+     * @param household 家庭
+     */
+    public void detach(Household household) {
+        household.detachDeviceIndex();
+    }
+
+    /**
+     * 获取已登记的设备数量
+     * @return 设备数量
+     */
+    public int size() {
+        return locations.size();
+    }
+}
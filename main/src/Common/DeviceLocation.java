@@ -0,0 +1,60 @@
+package Common;
+
+import DeviceEquipment.Device;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+
+/**
+ * 设备位置类，记录设备及其所在的房间与家庭
+ */
+public class DeviceLocation {
+    private final Device device;
+    private final Room room;
+    private final Household household;
+
+    /**
+     * 构造函数
+     * @param device 设备
+     * @param room 设备所在房间
+     * @param household 房间所属家庭
+     */
+    public DeviceLocation(Device device, Room room, Household household) {
+        this.device = device;
+        this.room = room;
+        this.household = household;
+    }
+
+    /**
+     * 获取设备
+     * @return 设备
+     */
+    public Device getDevice() {
+        return device;
+    }
+
+    /**
+     * 获取设备所在房间
+     * @return 房间
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * 获取房间所属家庭
+     * @return 家庭
+     */
+    public Household getHousehold() {
+        return household;
+    }
+
+    /**
+     * 重写toString方法，返回设备位置的字符串表示
+     * @return 设备位置的字符串表示
+     */
+    @Override
+    public String toString() {
+        return "DeviceLocation{deviceId='" + device.getDeviceId() + ", roomId='" + room.getRoomId()
+                + ", householdId='" + household.getHouseholdId() + "}";
+    }
+}
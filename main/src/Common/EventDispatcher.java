@@ -0,0 +1,72 @@
+package Common;
+
+/**
+ * 事件分发类，持有当前使用的事件接收器
+ *
+ * 默认使用控制台接收器，与直接输出到控制台的行为一致；可替换为 RingBufferEventSink
+ * 使发布方不再等待控制台输出，或替换为 EventSink.DISABLED 完全关闭事件。
+ * 发布方的典型用法：
+ * <pre>
+ * EventDispatcher events = EventDispatcher.getInstance();
+ * if (events.isEnabled()) {
+ *     events.publish(device.getName() + " powered on");
+ * }
+ * </pre>
+ * 禁用时只需读取一个 volatile 字段，不构造事件字符串。
+ */
+public class EventDispatcher {
+    private static final EventDispatcher INSTANCE = new EventDispatcher();
+
+    private volatile EventSink sink = ConsoleEventSink.getInstance();
+    private volatile boolean enabled = true;
+
+    private EventDispatcher() {
+    }
+
+    /**
+     * 获取事件分发器的唯一实例
+     * @return 事件分发器
+     */
+    public static EventDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 判断当前接收器是否接收事件
+     * @return 接收事件时返回true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 发布一个事件，禁用时直接丢弃
+     * @param event 事件内容
+     */
+    public void publish(String event) {
+        if (enabled) {
+            sink.publish(event);
+        }
+    }
+
+    /**
+     * 获取当前使用的事件接收器
+     * @return 事件接收器
+     */
+    public EventSink getSink() {
+        return sink;
+    }
+
+    /**
+     * 替换事件接收器，原接收器由调用方负责关闭
+     * @param sink 新的事件接收器，为null时禁用事件
+     * @return 原接收器
+     */
+    public synchronized EventSink setSink(EventSink sink) {
+        EventSink previous = this.sink;
+        EventSink current = sink == null ? EventSink.DISABLED : sink;
+        this.sink = current;
+        this.enabled = current.isEnabled();
+        return previous;
+    }
+}
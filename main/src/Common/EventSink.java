@@ -0,0 +1,43 @@
+package Common;
+
+/**
+ * 事件接收器接口，接收场景执行、设备命令与触发器评估等过程中产生的诊断事件
+ *
+ * 发布方通过 EventDispatcher 发布事件，接收器决定事件的去向（控制台、异步队列或丢弃）。
+ * 发布方应先调用 EventDispatcher.isEnabled 判断，禁用时不构造事件字符串。
+ */
+public interface EventSink {
+    /**
+     * 禁用的接收器，丢弃全部事件
+     */
+    EventSink DISABLED = new EventSink() {
+        @Override
+        public void publish(String event) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * 发布一个事件
+     * @param event 事件内容
+     */
+    void publish(String event);
+
+    /**
+     * 判断接收器是否接收事件
+     * @return 接收事件时返回true
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * 关闭接收器，释放其占用的资源
+     */
+    default void close() {
+    }
+}
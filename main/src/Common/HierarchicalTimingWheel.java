@@ -0,0 +1,261 @@
+package Common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮类，按到期时间保存大量定时任务
+ *
+ * 时间按固定的刻度推进，共 LEVELS 层，每层 SLOTS 个槽：第 0 层每个槽跨越 1 个刻度，
+ * 第 n 层每个槽跨越 SLOTS^n 个刻度。任务按距到期的刻度数放入能容纳它的最低一层，
+ * 时间推进到高层槽的边界时，该槽中的任务下沉到更低的层，最终在第 0 层到期。
+ * 加入与取消任务的开销为 O(1)；推进时间时跳过没有任务的刻度，开销与到期的任务数
+ * 及任务下沉的次数成正比，与经过的刻度数和时间轮中的任务总数无关。
+ *
+ * 本类不是线程安全的，由调用方加锁保护。
+ *
+ * @param <T> 任务携带的值类型
+ */
+public class HierarchicalTimingWheel<T> {
+    // 每层槽数的位数，每层 64 个槽
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    // 层数，以 1 秒为刻度时可容纳约 2 年内到期的任务，更远的任务暂存在最高层
+    private static final int LEVELS = 5;
+
+    private final long tickMillis;
+    // 每层每个槽中的任务，槽在第一次使用时创建
+    private final List<Timeout<T>>[][] wheels;
+    // 每层槽中的任务数（含已取消但尚未丢弃的任务），用于跳过空闲的刻度
+    private final int[] levelCounts = new int[LEVELS];
+    // 已推进到的刻度
+    private long currentTick;
+    private int size;
+
+    /**
+     * 构造函数
+     * @param tickMillis 刻度长度（毫秒）
+     * @param startMillis 起始时间（毫秒）
+     */
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("刻度长度必须为正数");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        this.wheels = newWheels();
+    }
+
+    /**
+     * 创建各层的槽位数组，Java 不支持直接创建泛型数组
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> List<Timeout<T>>[][] newWheels() {
+        return new List[LEVELS][SLOTS];
+    }
+
+    /**
+     * 加入一个定时任务，到期时间早于当前时间的任务在下一个刻度到期
+     * @param deadlineMillis 到期时间（毫秒）
+     * @param value 任务携带的值
+     * @return 任务句柄，可用于取消任务
+     */
+    public Timeout<T> schedule(long deadlineMillis, T value) {
+        // 向上取整，保证任务不会早于到期时间被取出
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(this, Math.max(deadlineTick, currentTick + 1), deadlineMillis, value);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * 将时间推进到指定时刻，依次取出其间到期且未取消的任务
+     * @param nowMillis 当前时间（毫秒）
+     * @param action 处理到期任务值的操作
+     * @return 到期的任务数量
+     */
+    public int advanceTo(long nowMillis, Consumer<? super T> action) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        int expired = 0;
+        while (currentTick < targetTick) {
+            skipIdleTicks(targetTick);
+            currentTick++;
+            cascade();
+            List<Timeout<T>> bucket = take(0, (int) currentTick & SLOT_MASK);
+            if (bucket == null) {
+                continue;
+            }
+            for (Timeout<T> timeout : bucket) {
+                if (timeout.cancelled) {
+                    continue;
+                }
+                if (timeout.deadlineTick > currentTick) {
+                    // 超出最高层范围的任务转了一圈后回到此处，重新放置
+                    place(timeout);
+                    continue;
+                }
+                timeout.expired = true;
+                size--;
+                expired++;
+                action.accept(timeout.value);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 获取尚未到期且未取消的任务数量
+     * @return 任务数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取刻度长度
+     * @return 刻度长度（毫秒）
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * 获取已推进到的时间
+     * @return 当前时间（毫秒）
+     */
+    public long currentMillis() {
+        return currentTick * tickMillis;
+    }
+
+    /**
+     * 第 0 层为空时，直接跳到下一个有任务需要下沉的高层槽边界的前一个刻度
+     * 高层槽的边界一定也是更低层槽的边界，因此只需考虑最低的非空层
+     */
+    private void skipIdleTicks(long targetTick) {
+        if (levelCounts[0] != 0) {
+            return;
+        }
+        long next = targetTick;
+        for (int level = 1; level < LEVELS; level++) {
+            if (levelCounts[level] != 0) {
+                int shift = SLOT_BITS * level;
+                next = Math.min(next, ((currentTick >>> shift) + 1) << shift);
+                break;
+            }
+        }
+        if (next - 1 > currentTick) {
+            currentTick = next - 1;
+        }
+    }
+
+    /**
+     * 推进到高层槽的边界时，将该槽中的任务重新放置到更低的层
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            List<Timeout<T>> bucket = take(level, (int) (currentTick >>> shift) & SLOT_MASK);
+            if (bucket != null) {
+                for (Timeout<T> timeout : bucket) {
+                    if (!timeout.cancelled) {
+                        place(timeout);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按距到期的刻度数将任务放入能容纳它的最低一层
+     */
+    private void place(Timeout<T> timeout) {
+        // 下沉时恰好在当前刻度到期的任务放入第 0 层的当前槽，随后即被取出
+        long tick = Math.max(timeout.deadlineTick, currentTick);
+        long delta = tick - currentTick;
+        int level = delta == 0 ? 0 : Math.min((63 - Long.numberOfLeadingZeros(delta)) / SLOT_BITS, LEVELS - 1);
+        int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        List<Timeout<T>> bucket = wheels[level][slot];
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            wheels[level][slot] = bucket;
+        }
+        bucket.add(timeout);
+        levelCounts[level]++;
+    }
+
+    /**
+     * 取出槽中的全部任务并清空该槽
+     */
+    private List<Timeout<T>> take(int level, int slot) {
+        List<Timeout<T>> bucket = wheels[level][slot];
+        if (bucket == null || bucket.isEmpty()) {
+            return null;
+        }
+        wheels[level][slot] = null;
+        levelCounts[level] -= bucket.size();
+        return bucket;
+    }
+
+    /**
+     * 定时任务句柄
+     * @param <T> 任务携带的值类型
+     */
+    public static final class Timeout<T> {
+        private final HierarchicalTimingWheel<T> wheel;
+        private final long deadlineTick;
+        private final long deadlineMillis;
+        private final T value;
+        private boolean cancelled;
+        private boolean expired;
+
+        private Timeout(HierarchicalTimingWheel<T> wheel, long deadlineTick, long deadlineMillis, T value) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.deadlineMillis = deadlineMillis;
+            this.value = value;
+        }
+
+        /**
+         * 取消任务，任务在其所在的槽被处理时丢弃
+         * @return 任务此前未到期且未取消时返回true
+         */
+        public boolean cancel() {
+            if (cancelled || expired) {
+                return false;
+            }
+            cancelled = true;
+            wheel.size--;
+            return true;
+        }
+
+        /**
+         * 获取任务的到期时间
+         * @return 到期时间（毫秒）
+         */
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * 获取任务携带的值
+         * @return 任务携带的值
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * 判断任务是否已取消
+         * @return 已取消时返回true
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -1,51 +1,72 @@
 package Common;
 
 import AutomatedWorkflow.AutomationScene;
-import DeviceEquipment.AirConditioner;
+import AutomatedWorkflow.TriggerScheduler;
 import DeviceEquipment.Device;
-import DeviceEquipment.LightBulb;
+import EmissionReduction.EnergyReporting;
 import NormalException.CannotDoException;
 import NormalException.CannotFindException;
 import NormalException.InvalidUserException;
 import NormalException.RepeatedException;
 import UserAndHousehold.Household;
-import UserAndHousehold.Membership;
 import UserAndHousehold.Room;
 import UserAndHousehold.User;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 /**
  * Common.HomeSphereSystem 类是智能家居系统的主控制器
  * 负责管理用户、家庭户、设备和自动化场景等核心功能
  * 提供用户注册登录、家庭户管理、设备控制、能耗统计等服务
+ *
+ * 系统可被多个线程并发访问：用户与家庭的映射及各索引均为并发映射，查询不加锁；
+ * 家庭内部的状态由各家庭自身的读写锁保护，不同家庭的操作互不阻塞。
+ * 家庭的加入、替换与删除需要同时修改家庭映射与全局设备索引，由 householdsLock 串行执行。
  */
 public class HomeSphereSystem {
-    // 使用 LinkedHashMap 存储用户，以用户ID为键，用户对象为值
-    private Map<Integer, User> users = new LinkedHashMap<>();
-    // 使用 LinkedHashMap 存储家庭户，以家庭户ID为键，家庭户对象为值
-    private Map<Integer, Household> households = new LinkedHashMap<>();
+    // 按用户ID排序存储用户，以用户ID为键，用户对象为值；ID按注册顺序递增，遍历顺序即注册顺序
+    private SnapshotMap<Integer, User> users = new SnapshotMap<>(new ConcurrentSkipListMap<>());
+    // 登录名索引，以登录名为键，用户对象为值，用于注册查重与登录
+    private Map<String, User> usersByLoginName = new ConcurrentHashMap<>();
+    // 手机号索引，以手机号为键，使用该手机号的用户列表为值
+    // 列表不可修改，变更时在 compute 中整体替换；绝大多数手机号只对应一个用户，使用单元素列表以节省内存
+    private Map<String, List<User>> usersByPhoneNumber = new ConcurrentHashMap<>();
+    // 按家庭户ID排序存储家庭户，以家庭户ID为键，家庭户对象为值
+    private SnapshotMap<Integer, Household> households = new SnapshotMap<>(new ConcurrentSkipListMap<>());
+    // 串行化家庭的加入、替换与删除，保证家庭映射与全局设备索引一致
+    private final ReentrantLock householdsLock = new ReentrantLock();
+    // ID分配服务，为用户、家庭与设备分配系统内唯一的ID
+    private final IdAllocationService idAllocationService = new IdAllocationService();
+    // 全局设备索引，记录系统中每个设备所在的房间与家庭
+    private final DeviceIndex deviceIndex = new DeviceIndex(idAllocationService);
+    // 授权索引，记录每个用户在每个家庭中的角色，权限检查只需一次查找
+    private final AuthorizationIndex authorizationIndex = new AuthorizationIndex();
+    // 会话管理器，多个用户可同时登录，每个需要身份的操作都以会话作为调用上下文
+    private final SessionManager sessionManager = new SessionManager();
     private User admin;
-    private User currentUser;
 
     /**
      * 用户名正则表达式：3-20位，以字母开头，只能包含字母、数字、下划线
      * 用于验证用户名格式是否符合要求
      */
-    private static final String USERNAME_PATTERN = "^[a-zA-Z][a-zA-Z0-9_]{2,19}$";
+    private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z][a-zA-Z0-9_]{2,19}$");
 
     /**
      * 修改后的密码正则表达式：至少8位，必须包含大小写字母和数字
      * 用于验证密码强度，确保密码安全性
      */
-    private static final String PASSWORD_PATTERN = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)[A-Za-z\\d@$!%*?&]{8,}$";
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)[A-Za-z\\d@$!%*?&]{8,}$");
 
     /**
      * 修改后的手机号正则表达式，匹配常见的手机号前三位
      * 用于验证手机号格式是否符合中国大陆手机号规则
      */
-    private static final String PHONE_PATTERN = "^1(3[0-9]|4[01456879]|5[0-35-9]|6[2567]|7[0-8]|8[0-9]|9[0-35-9])\\d{8}$";
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^1(3[0-9]|4[01456879]|5[0-35-9]|6[2567]|7[0-8]|8[0-9]|9[0-35-9])\\d{8}$");
 
     /**
      * 系统超级用户名
@@ -67,12 +88,12 @@ public class HomeSphereSystem {
 
     /**
      * 私有构造函数，用于初始化HomeSphereSystem实例
-     * 创建系统管理员用户并将其添加到用户集合中，同时设置当前用户为管理员
+     * 创建系统管理员用户并将其添加到用户集合中
      */
     private HomeSphereSystem(){
         this.admin = new User(0, SUPER_USER_NAME, "111111", "管理员", "13512345678");
         users.put(admin.getUserId(), admin);
-        currentUser = admin;
+        indexUser(admin);
     }
 
     /**
@@ -107,26 +128,29 @@ public class HomeSphereSystem {
             throw new IllegalArgumentException("参数不能为空！");
         }
 
-        // 检查用户是否已存在
-        if(users.values().stream().anyMatch(user -> user.getLoginName().equals(loginName))){
+        // 通过登录名索引检查用户是否已存在
+        if(usersByLoginName.containsKey(loginName)){
             throw new RepeatedException("用户已存在！");
         }
 
-        // 参数校验
-        if (!loginName.matches(USERNAME_PATTERN)) {
+        // 参数校验，正则表达式已预先编译
+        if (!USERNAME_PATTERN.matcher(loginName).matches()) {
             throw new IllegalArgumentException("用户名格式不正确！请输入3-20位，以字母开头，只能包含字母、数字、下划线的用户名。");
         }
-        if (!loginPassword.matches(PASSWORD_PATTERN)) {
+        if (!PASSWORD_PATTERN.matcher(loginPassword).matches()) {
             throw new SecurityException("密码不安全！请输入至少8位，必须包含大小写字母和数字的密码。");
         }
-        if (!phoneNumber.matches(PHONE_PATTERN)) {
+        if (phoneNumber == null || !PHONE_PATTERN.matcher(phoneNumber).matches()) {
             throw new IllegalArgumentException("手机号格式不正确！请输入正确的手机号码。");
         }
 
 
-        // 创建新用户并添加到用户映射中
-        int userId = generateUniqueId(users);
+        // 创建新用户，原子地占用登录名后加入用户映射，并发注册同名用户时只有一个成功
+        int userId = idAllocationService.next(IdAllocationService.Entity.USER);
         User user = new User(userId, loginName, loginPassword, userName, phoneNumber);
+        if (!indexUser(user)) {
+            throw new RepeatedException("用户已存在！");
+        }
         users.put(user.getUserId(), user);
         return user;
     }
@@ -135,34 +159,35 @@ public class HomeSphereSystem {
      * 用户登录功能
      * @param loginName 登录用户名
      * @param loginPassword 登录密码
+     * @return 为该用户签发的新会话
      */
-    public void login(String loginName, String loginPassword) throws Exception{
+    public Session login(String loginName, String loginPassword) throws Exception{
         // 参数验证
         if (loginName == null || loginPassword == null) {
             throw new IllegalArgumentException("参数不能为空！");
         }
 
-        // 遍历用户映射查找匹配的用户名和密码
-        for (User user : users.values()) {
-            if (user.getLoginName().equals(loginName) && user.getLoginPassword().equals(loginPassword)) {
-                currentUser = user;
-                System.out.println("登录成功！欢迎 " + user.getUserName());
-                return;
-            }
-            if(user.getLoginName().equals(loginName) && !user.getLoginPassword().equals(loginPassword)){
-                throw new InvalidUserException("登录失败！密码错误!");
-            }
+        // 通过登录名索引查找用户并校验密码
+        User user = usersByLoginName.get(loginName);
+        if (user == null) {
+            throw new InvalidUserException("登录失败！用户不存在!");
         }
-        throw new InvalidUserException("登录失败！用户不存在!");
+        if (!user.getLoginPassword().equals(loginPassword)) {
+            throw new InvalidUserException("登录失败！密码错误!");
+        }
+        Session session = sessionManager.open(user);
+        System.out.println("登录成功！欢迎 " + user.getUserName());
+        return session;
     }
 
 
         /**
      * 用户退出登录功能
-     * 该方法用于清除当前用户信息并显示退出登录提示
+     * 该方法用于注销会话并显示退出登录提示，其他用户的会话不受影响
+     * @param session 需要注销的会话
      */
-    public void logoff(){
-        currentUser = null; // 清空当前用户信息
+    public void logoff(Session session){
+        sessionManager.close(session);
         System.out.println("已退出登录！");
     }
 
@@ -177,6 +202,60 @@ public class HomeSphereSystem {
         return users.get(userId);
     }
 
+    /**
+     * 根据登录名查找用户
+     * @param loginName 登录名
+     * @return 返回找到的用户对象，如果未找到则返回null
+     */
+    public User findUserByLoginName(String loginName){
+        return usersByLoginName.get(loginName);
+    }
+
+    /**
+     * 根据手机号查找用户
+     * @param phoneNumber 手机号码
+     * @return 使用该手机号的只读用户列表，按注册顺序排列，没有用户时返回空列表
+     */
+    public List<User> findUsersByPhoneNumber(String phoneNumber){
+        List<User> result = usersByPhoneNumber.get(phoneNumber);
+        // 索引中的列表不可修改，变更时整体替换，可以直接返回
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    /**
+     * 将用户加入登录名与手机号索引
+     * @param user 用户对象
+     * @return 登录名已被其他用户占用时返回false，此时不做任何修改
+     */
+    private boolean indexUser(User user){
+        if (usersByLoginName.putIfAbsent(user.getLoginName(), user) != null) {
+            return false;
+        }
+        usersByPhoneNumber.compute(user.getPhoneNumber(), (phoneNumber, sharing) -> {
+            if (sharing == null) {
+                return Collections.singletonList(user);
+            }
+            List<User> updated = new ArrayList<>(sharing);
+            updated.add(user);
+            return Collections.unmodifiableList(updated);
+        });
+        idAllocationService.observe(IdAllocationService.Entity.USER, user.getUserId());
+        return true;
+    }
+
+    /**
+     * 将用户移出登录名与手机号索引
+     * @param user 用户对象
+     */
+    private void unindexUser(User user){
+        usersByLoginName.remove(user.getLoginName(), user);
+        usersByPhoneNumber.computeIfPresent(user.getPhoneNumber(), (phoneNumber, sharing) -> {
+            List<User> updated = new ArrayList<>(sharing);
+            updated.remove(user);
+            return updated.isEmpty() ? null : Collections.unmodifiableList(updated);
+        });
+    }
+
 
         /**
      * 根据家庭ID查找对应的家庭对象
@@ -200,10 +279,17 @@ public class HomeSphereSystem {
             throw new IllegalArgumentException("地址不能为空！");
         }
 
-        // 生成唯一ID
-        int newId = generateUniqueId(households);
+        // 分配唯一ID
+        int newId = idAllocationService.next(IdAllocationService.Entity.HOUSEHOLD);
         Household household = new Household(newId, address);
-        households.put(household.getHouseholdId(), household);
+        householdsLock.lock();
+        try {
+            deviceIndex.attach(household);
+            authorizationIndex.attach(household);
+            households.put(household.getHouseholdId(), household);
+        } finally {
+            householdsLock.unlock();
+        }
         return household;
     }
 
@@ -211,7 +297,7 @@ public class HomeSphereSystem {
      * 添加住户信息
      * @param id 住户唯一标识符
      * @param household 住户对象
-     * @throws Exception 当参数为空时抛出异常
+     * @throws Exception 当参数为空或家庭中的设备ID已被其他家庭占用时抛出异常
      */
     public void addHousehold(int id, Household household) throws  Exception{
         // 参数验证
@@ -219,8 +305,34 @@ public class HomeSphereSystem {
             throw new IllegalArgumentException("参数不能为空！");
         }
 
-        // 生成唯一ID
-        households.put(id, household);
+        householdsLock.lock();
+        try {
+            // 替换同ID的家庭时先移除其设备登记，新家庭登记失败则恢复
+            Household replaced = households.get(id);
+            if (replaced != null && replaced != household) {
+                deviceIndex.detach(replaced);
+            }
+            try {
+                deviceIndex.attach(household);
+            } catch (RepeatedException e) {
+                if (replaced != null && replaced != household) {
+                    deviceIndex.attach(replaced);
+                }
+                throw e;
+            }
+            // 设备登记成功后再替换成员登记，被替换家庭的成员不再拥有该家庭ID的权限
+            if (replaced != null && replaced != household) {
+                authorizationIndex.detach(replaced);
+            }
+            authorizationIndex.attach(household);
+            households.put(id, household);
+            idAllocationService.observe(IdAllocationService.Entity.HOUSEHOLD, id);
+            if (replaced != null && replaced != household) {
+                unscheduleAutoScenes(replaced);
+            }
+        } finally {
+            householdsLock.unlock();
+        }
 
     }
 
@@ -230,7 +342,10 @@ public class HomeSphereSystem {
      *
      * @param map 包含家庭ID映射关系的Map对象
      * @return 返回一个新的唯一家庭ID，该ID比当前所有家庭ID中的最大值大1
+     * @deprecated 每次调用都需遍历全部键，且删除最大ID后会重复分配；
+     *             请使用 getIdAllocationService() 返回的ID分配服务
      */
+    @Deprecated
     public int generateUniqueId(Map map) {
         // 查找当前所有家庭ID中的最大值
         int maxId = map.keySet().stream()
@@ -249,34 +364,110 @@ public class HomeSphereSystem {
      * @param householdId 户主ID，用于标识要删除的户主
      */
     public void removeHousehold(int householdId){
+        householdsLock.lock();
         try{
             // 检查要删除的户主是否存在
             if(findHouseholdById(householdId) == null){
                 throw new CannotFindException("户主不存在！");
             }
 
-            // 从户主映射中移除指定的户主
-            households.remove(householdId);
+            // 从户主映射中移除指定的户主，并移除其全部设备与成员的登记
+            Household household = households.remove(householdId);
+            deviceIndex.detach(household);
+            authorizationIndex.detach(household);
+            unscheduleAutoScenes(household);
         }
         catch(Exception e){
             System.out.println(e.getMessage());
         }
+        finally {
+            householdsLock.unlock();
+        }
+    }
+
+    /**
+     * 启动自动化：由触发器调度的后台线程在时间触发器的激活边沿执行场景
+     */
+    public void startAutomation(){
+        TriggerScheduler.getInstance().start();
+    }
+
+    /**
+     * 停止自动化：停止触发器调度的后台线程，已登记的场景保留
+     */
+    public void stopAutomation(){
+        TriggerScheduler.getInstance().stop();
+    }
+
+    /**
+     * 家庭离开系统后，其场景的时间触发器不再调度
+     */
+    private void unscheduleAutoScenes(Household household){
+        for (AutomationScene scene : household.getAutoScenes()) {
+            TriggerScheduler.getInstance().unregister(scene);
+        }
+    }
+
+    /**
+     * 获取ID分配服务
+     * @return ID分配服务
+     */
+    public IdAllocationService getIdAllocationService(){
+        return idAllocationService;
+    }
+
+    /**
+     * 获取全局设备索引
+     * @return 全局设备索引
+     */
+    public DeviceIndex getDeviceIndex(){
+        return deviceIndex;
     }
 
     /**
-     * 获取当前登录的用户对象
-     * @return 当前登录的用户对象
+     * 获取授权索引
+     * @return 授权索引
      */
-    public User getCurrentUser(){
-        return currentUser;
+    public AuthorizationIndex getAuthorizationIndex(){
+        return authorizationIndex;
     }
 
     /**
-     * 删除用户信息
+     * 根据设备ID定位设备及其所在的房间与家庭
+     * @param deviceId 设备ID
+     * @return 设备位置，设备不存在时返回null
+     */
+    public DeviceLocation locateDevice(int deviceId){
+        return deviceIndex.locate(deviceId);
+    }
+
+    /**
+     * 获取会话管理器
+     * @return 会话管理器
+     */
+    public SessionManager getSessionManager(){
+        return sessionManager;
+    }
+
+    /**
+     * 校验会话并获取其所属用户
+     * @param session 会话
+     * @return 会话所属用户
+     * @throws InvalidUserException 当会话无效、已注销或已过期时抛出
+     */
+    public User requireUser(Session session) throws InvalidUserException {
+        return sessionManager.validate(session);
+    }
+
+    /**
+     * 删除用户信息，被删除用户的全部会话随之失效
+     * @param session 操作者会话
      * @param userId 要删除的用户ID
      */
-    public void removeUser(int userId) {
+    public void removeUser(Session session, int userId) {
         try{
+            User operator = requireUser(session);
+
             // 检查用户是否存在
             User userToRemove = findUserById(userId);
             if (userToRemove == null) {
@@ -284,7 +475,7 @@ public class HomeSphereSystem {
             }
 
             // 检查是否为当前用户，禁止删除自己
-            if (currentUser != null && currentUser.getUserId() == userId) {
+            if (operator.getUserId() == userId) {
                 throw new CannotDoException("不能删除自己！");
             }
 
@@ -293,8 +484,12 @@ public class HomeSphereSystem {
                 throw new CannotDoException("不能删除超级用户！");
             }
 
-            // 执行删除操作
-            users.remove(userId);
+            // 执行删除操作，并发删除同一用户时只有一个成功
+            if (!users.remove(userId, userToRemove)) {
+                throw new CannotFindException("用户不存在！");
+            }
+            unindexUser(userToRemove);
+            sessionManager.closeAll(userToRemove);
             System.out.println("用户删除成功！");
         }
         catch(Exception e){
@@ -305,20 +500,18 @@ public class HomeSphereSystem {
 
     /**
      * 获取所有用户列表
-     * @return 用户列表
+     * @return 用户的只读快照，用户增删前多次调用返回同一列表
      */
     public List<User> getUsers(){
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(users.values());
+        return users.snapshot();
     }
 
     /**
      * 获取所有家庭户列表
-     * @return 家庭户列表
+     * @return 家庭户的只读快照，家庭户增删前多次调用返回同一列表
      */
     public List<Household> getHouseholds(){
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(households.values());
+        return households.snapshot();
     }
 
     /**
@@ -351,25 +544,26 @@ public class HomeSphereSystem {
 
         /**
      * 根据家庭ID列出所有自动场景
+     * @param session 操作者会话
      * @param householdId 家庭ID，用于查找对应的家庭对象
      */
-    public void listAutoScenesByHousehold(int householdId){
+    public void listAutoScenesByHousehold(Session session, int householdId){
         try{
+            User currentUser = requireUser(session);
             // 查找指定ID的家庭对象
             Household household = findHouseholdById(householdId);
             if(household == null){
                 throw new CannotFindException("家庭不存在！");
             }
-            // 遍历家庭成员，检查当前用户是否有权限查看
-            for(Membership membership : household.getMemberships()){
-                if(membership.getUser().getUserId() == currentUser.getUserId()){
-                    System.out.println("=== 智能场景列表 ===");
-                    // 输出该家庭下的所有自动场景
-                    for(AutomationScene autoScene : household.getAutoScenes()){
-                        System.out.println(autoScene);
-                        System.out.println("------------------------------");
-                    }
+            // 通过授权索引检查当前用户是否为家庭成员，有权限查看
+            if(household.getRoles(currentUser.getUserId()) != 0){
+                System.out.println("=== 智能场景列表 ===");
+                // 输出该家庭下的所有自动场景
+                for(AutomationScene autoScene : household.getAutoScenes()){
+                    System.out.println(autoScene);
+                    System.out.println("------------------------------");
                 }
+                return;
             }
             // 检查当前用户是否为超级用户
             if(currentUser.getLoginName().equals(SUPER_USER_NAME)){
@@ -426,13 +620,11 @@ public class HomeSphereSystem {
             for(Room room : household.getRooms()){
                 System.out.println("房间：" + room.getName());
                 for(Device device : room.getDevices()){
-                    if(device instanceof AirConditioner){
-                        System.out.printf("设备：" + device.getName() + " - %.3f Wh\n", ((AirConditioner)device).getReport(startTime , endTime));
-                        totalEnergy += ((AirConditioner)device).getReport(startTime , endTime);
-                    }
-                    if(device instanceof LightBulb){
-                        System.out.printf("设备：" + device.getName() + " - %.3f Wh\n", ((LightBulb)device).getReport(startTime , endTime));
-                        totalEnergy += ((LightBulb)device).getReport(startTime , endTime);
+                    // 每个设备只计算一次能耗，同时用于输出与汇总
+                    if(device instanceof EnergyReporting){
+                        double energy = ((EnergyReporting)device).getReport(startTime , endTime);
+                        System.out.printf("设备：" + device.getName() + " - %.3f Wh\n", energy);
+                        totalEnergy += energy;
                     }
                 }
                 System.out.println();
@@ -449,6 +641,7 @@ public class HomeSphereSystem {
 
     /**
      * 手动触发指定家庭ID的指定自动场景
+     * 设备动作在后台异步执行，不等待执行完毕
      * @param householdId 家庭ID，用于查找对应的家庭对象
      * @param sceneId 自动场景ID，用于查找对应的自动场景对象
      */
@@ -465,7 +658,7 @@ public class HomeSphereSystem {
                 throw new CannotFindException("自动场景不存在！");
             }
             // 手动触发该自动场景
-            autoScene.manualTrig();
+            autoScene.manualTrigAsync();
         }
         catch(Exception e){
             System.out.println(e.getMessage());
@@ -0,0 +1,283 @@
+package Common;
+
+import EmissionReduction.HouseholdExportEngine;
+import EmissionReduction.HouseholdExportVisitor;
+import EmissionReduction.RunningLogFormatter;
+import UserAndHousehold.Household;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 家庭数据并行导出类
+ *
+ * 每个家庭作为一个独立任务，由固定大小的线程池并发导出。任务通过 HouseholdExportEngine
+ * 只遍历一次家庭，同时写出全部格式的文件，每种格式持有一个文件写缓冲区（BUFFER_SIZE）
+ * 与格式化器访问者自身的缓冲区（见 RunningLogFormatter.getBufferBytes）。
+ * 同时执行的任务数受内存预算限制，因此各任务导出缓冲区的总量不超过 maxInFlightBytes；
+ * 预算不足一个任务所需时仍以一个任务执行。家庭数据本身常驻内存，导出时在读锁下直接遍历、
+ * 不做复制，不计入预算。任务提交方在预算耗尽时阻塞等待。
+ * 全部任务结束后按格式汇总成功数、失败原因、写出字节数与吞吐量。
+ */
+public class HouseholdExporter {
+    // 每个导出文件的写缓冲区大小（字节）
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final File directory;
+    private final int parallelism;
+    private final long maxInFlightBytes;
+
+    /**
+     * 构造函数
+     * @param directory 导出目录
+     * @param parallelism 并发线程数
+     * @param maxInFlightBytes 导出缓冲区的总量上限（字节），至少容纳一个文件写缓冲区；
+     *                         每个任务按格式数量占用文件写缓冲区与格式化器的缓冲区
+     */
+    public HouseholdExporter(File directory, int parallelism, long maxInFlightBytes) {
+        if (directory == null) {
+            throw new IllegalArgumentException("导出目录不能为空");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("并发线程数必须为正数");
+        }
+        if (maxInFlightBytes < BUFFER_SIZE) {
+            throw new IllegalArgumentException("内存预算不能小于 " + BUFFER_SIZE + " 字节");
+        }
+        this.directory = directory;
+        this.parallelism = parallelism;
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    /**
+     * 将全部家庭按给定的格式并行导出，文件名为 家庭ID.扩展名
+     * @param households 需要导出的家庭
+     * @param formatters 文件扩展名到格式化器的映射，报告顺序与映射的迭代顺序一致
+     * @return 各格式的导出报告
+     */
+    public List<ExportReport> export(Collection<Household> households, Map<String, RunningLogFormatter> formatters) {
+        List<ExportReport> reports = new ArrayList<>();
+        for (String extension : formatters.keySet()) {
+            reports.add(new ExportReport(extension));
+        }
+        if (households.isEmpty() || reports.isEmpty()) {
+            return reports;
+        }
+
+        // 每个任务为每种格式持有一个文件写缓冲区与格式化器的缓冲区，内存预算决定同时执行的任务数上限
+        List<RunningLogFormatter> formatterList = new ArrayList<>(formatters.values());
+        long taskBytes = 0;
+        for (RunningLogFormatter formatter : formatterList) {
+            taskBytes += BUFFER_SIZE + formatter.getBufferBytes();
+        }
+        int slots = (int) Math.max(1, Math.min(parallelism, maxInFlightBytes / taskBytes));
+        Semaphore budget = new Semaphore(slots);
+        ExecutorService executor = Executors.newFixedThreadPool(slots, exportThreadFactory());
+        long begin = System.nanoTime();
+        try {
+            for (Household household : households) {
+                try {
+                    budget.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            exportHousehold(household, formatterList, reports, begin);
+                        } finally {
+                            budget.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    budget.release();
+                    for (ExportReport report : reports) {
+                        report.fail(household.getHouseholdId(), e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // 等待剩余任务写完
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * 打开家庭的全部格式文件，遍历一次家庭同时写出，某一格式失败不影响其他格式
+     */
+    private void exportHousehold(Household household, List<RunningLogFormatter> formatters,
+                                 List<ExportReport> reports, long begin) {
+        int count = formatters.size();
+        File[] files = new File[count];
+        OutputStream[] streams = new OutputStream[count];
+        List<HouseholdExportVisitor> visitors = new ArrayList<>(count);
+        List<Integer> exporting = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                files[i] = new File(directory, household.getHouseholdId() + "." + reports.get(i).getExtension());
+                try {
+                    streams[i] = new BufferedOutputStream(new FileOutputStream(files[i]), BUFFER_SIZE);
+                    visitors.add(formatters.get(i).createVisitor(streams[i]));
+                    exporting.add(i);
+                } catch (IOException | RuntimeException e) {
+                    reports.get(i).fail(household.getHouseholdId(), e.getMessage());
+                }
+            }
+
+            // 直接流式写入文件，不在内存中构造完整字符串
+            IOException[] failures;
+            try {
+                failures = HouseholdExportEngine.export(household, visitors);
+            } catch (RuntimeException e) {
+                failures = new IOException[visitors.size()];
+                Arrays.fill(failures, new IOException(e.getMessage(), e));
+            }
+            for (int v = 0; v < failures.length; v++) {
+                int i = exporting.get(v);
+                if (failures[v] != null) {
+                    reports.get(i).fail(household.getHouseholdId(), failures[v].getMessage());
+                    // 失败的格式不再统计，关闭时忽略其异常
+                    closeQuietly(streams[i]);
+                    streams[i] = null;
+                }
+            }
+        } finally {
+            for (int i = 0; i < count; i++) {
+                if (streams[i] == null) {
+                    continue;
+                }
+                try {
+                    streams[i].close();
+                    reports.get(i).succeed(files[i].length(), System.nanoTime() - begin);
+                } catch (IOException e) {
+                    reports.get(i).fail(household.getHouseholdId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // 该格式已记录失败原因
+        }
+    }
+
+    private static ThreadFactory exportThreadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "household-export-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 单一格式的导出报告，各导出线程并发更新
+     */
+    public static class ExportReport {
+        private final String extension;
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong elapsedNanos = new AtomicLong();
+        private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+        private ExportReport(String extension) {
+            this.extension = extension;
+        }
+
+        private void succeed(long fileBytes, long elapsed) {
+            succeeded.incrementAndGet();
+            bytes.addAndGet(fileBytes);
+            elapsedNanos.accumulateAndGet(elapsed, Math::max);
+        }
+
+        private void fail(int householdId, String message) {
+            failures.add("家庭 " + householdId + ": " + message);
+        }
+
+        /**
+         * 获取文件扩展名
+         * @return 文件扩展名
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 获取导出成功的家庭数量
+         * @return 成功数量
+         */
+        public int getSucceeded() {
+            return succeeded.get();
+        }
+
+        /**
+         * 获取导出失败的原因列表
+         * @return 失败原因，每项形如 "家庭 ID: 原因"
+         */
+        public List<String> getFailures() {
+            return new ArrayList<>(failures);
+        }
+
+        /**
+         * 获取写出的总字节数
+         * @return 字节数
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * 获取从导出开始到该格式最后一个文件写完的耗时
+         * @return 耗时（毫秒）
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos.get());
+        }
+
+        /**
+         * 获取写出吞吐量
+         * @return 吞吐量（MB/s）
+         */
+        public double getThroughput() {
+            long nanos = elapsedNanos.get();
+            return nanos == 0 ? 0 : bytes.get() / 1024.0 / 1024.0 / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("保存 %s 文件：成功 %d 个，失败 %d 个，共 %.2f MB，耗时 %d ms，吞吐量 %.2f MB/s",
+                    extension.toUpperCase(), getSucceeded(), failures.size(), bytes.get() / 1024.0 / 1024.0,
+                    getElapsedMillis(), getThroughput());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Common;
+
+/**
+ * ID分配服务，为系统中的每类实体维护独立的ID分配器
+ *
+ * 默认使用 SequenceIdAllocator，可通过 setAllocator 替换为其他实现（例如由数据库序列支撑的分配器）。
+ * 由外部指定ID的实体加入系统时应调用 observe 登记，避免之后分配出重复的ID。
+ */
+public class IdAllocationService {
+
+    /**
+     * 由系统统一分配ID的实体类型
+     */
+    public static enum Entity {
+        USER, HOUSEHOLD, DEVICE
+    }
+
+    // 以实体类型序号为下标的分配器数组，替换分配器时整体复制，读取时无需加锁
+    private volatile IdAllocator[] allocators = new IdAllocator[Entity.values().length];
+
+    /**
+     * 构造函数，为每类实体创建默认的序列分配器
+     */
+    public IdAllocationService() {
+        for (Entity entity : Entity.values()) {
+            allocators[entity.ordinal()] = new SequenceIdAllocator();
+        }
+    }
+
+    /**
+     * 为指定实体分配一个新的ID
+     * @param entity 实体类型
+     * @return 新ID
+     */
+    public int next(Entity entity) {
+        return getAllocator(entity).next();
+    }
+
+    /**
+     * 为指定实体预留连续的一段ID
+     * @param entity 实体类型
+     * @param count 预留的ID数量
+     * @return 预留段中的第一个ID
+     */
+    public int reserve(Entity entity, int count) {
+        return getAllocator(entity).reserve(count);
+    }
+
+    /**
+     * 登记指定实体的一个已使用ID
+     * @param entity 实体类型
+     * @param id 已使用的ID
+     */
+    public void observe(Entity entity, int id) {
+        getAllocator(entity).observe(id);
+    }
+
+    /**
+     * 获取指定实体的ID分配器
+     * @param entity 实体类型
+     * @return ID分配器
+     */
+    public IdAllocator getAllocator(Entity entity) {
+        return allocators[entity.ordinal()];
+    }
+
+    /**
+     * 替换指定实体的ID分配器，新分配器会先登记原分配器的当前最大ID
+     * @param entity 实体类型
+     * @param allocator 新的ID分配器
+     */
+    public synchronized void setAllocator(Entity entity, IdAllocator allocator) {
+        if (entity == null || allocator == null) {
+            throw new IllegalArgumentException("参数不能为空");
+        }
+        allocator.observe(getAllocator(entity).current());
+        IdAllocator[] updated = allocators.clone();
+        updated[entity.ordinal()] = allocator;
+        allocators = updated;
+    }
+}
@@ -0,0 +1,33 @@
+package Common;
+
+/**
+ * ID分配器接口
+ * 为某一类实体分配互不重复的正整数ID，实现类需保证并发调用时的安全性
+ */
+public interface IdAllocator {
+
+    /**
+     * 分配一个新的ID
+     * @return 新ID
+     */
+    public int next();
+
+    /**
+     * 一次性预留连续的一段ID，用于批量插入
+     * @param count 预留的ID数量
+     * @return 预留段中的第一个ID，预留段为 [返回值, 返回值 + count)
+     */
+    public int reserve(int count);
+
+    /**
+     * 登记一个由外部指定的ID，保证此后分配的ID均大于该ID
+     * @param id 已使用的ID
+     */
+    public void observe(int id);
+
+    /**
+     * 获取已分配或已登记的最大ID
+     * @return 最大ID，尚未分配时返回0
+     */
+    public int current();
+}
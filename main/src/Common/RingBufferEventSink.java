@@ -0,0 +1,182 @@
+package Common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 环形缓冲事件接收器
+ *
+ * 发布线程只把事件放入有界的环形缓冲区即返回，由一个后台线程按发布顺序取出事件，
+ * 交给下游接收器（通常是控制台接收器）输出，发布线程不再等待控制台 I/O。
+ * 缓冲区为多生产者、单消费者结构：生产者以 CAS 竞争下一个位置，不加锁；
+ * 缓冲区已满时丢弃新事件并计数，不阻塞发布线程。
+ */
+public class RingBufferEventSink implements EventSink {
+    // 默认缓冲区容量
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    // 缓冲区为空时后台线程的最长等待时间
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventSink downstream;
+    private final AtomicReferenceArray<String> buffer;
+    private final int mask;
+    // 下一个待写入的序号，由生产者竞争递增
+    private final AtomicLong tail = new AtomicLong();
+    // 下一个待交付的序号，只由后台线程在事件交给下游之后修改
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    /**
+     * 构造函数，使用默认容量
+     * @param downstream 下游接收器
+     */
+    public RingBufferEventSink(EventSink downstream) {
+        this(downstream, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 构造函数，容量向上取整为 2 的幂
+     * @param downstream 下游接收器
+     * @param capacity 缓冲区容量
+     */
+    public RingBufferEventSink(EventSink downstream, int capacity) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("下游接收器不能为空");
+        }
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("缓冲区容量无效：" + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.downstream = downstream;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.drainer = new Thread(this::drain, "event-sink-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * 将事件放入缓冲区，缓冲区已满或接收器已关闭时丢弃该事件
+     * @param event 事件内容
+     */
+    @Override
+    public void publish(String event) {
+        if (event == null || closed) {
+            dropped.increment();
+            return;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        // 位置已被本线程占有，写入后后台线程才能读取
+        buffer.lazySet((int) sequence & mask, event);
+    }
+
+    /**
+     * 等待当前已发布的事件全部交给下游接收器
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 全部交付时返回true，超时返回false
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (head < target) {
+            if (!drainer.isAlive() || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.unpark(drainer);
+            Thread.yield();
+        }
+        return true;
+    }
+
+    /**
+     * 关闭接收器，停止接收新事件，并等待后台线程交付缓冲区中剩余的事件
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取因缓冲区已满或接收器已关闭而丢弃的事件数量
+     * @return 丢弃数量
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 获取缓冲区中尚未交付的事件数量
+     * @return 待交付数量
+     */
+    public int pending() {
+        return (int) (tail.get() - head);
+    }
+
+    /**
+     * 获取缓冲区容量
+     * @return 容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 后台线程：按序号顺序取出事件交给下游接收器，缓冲区为空时逐步延长等待时间
+     */
+    private void drain() {
+        long idleNanos = 1_000;
+        while (true) {
+            long sequence = head;
+            if (sequence == tail.get()) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.parkNanos(this, idleNanos);
+                idleNanos = Math.min(idleNanos << 1, MAX_IDLE_NANOS);
+                continue;
+            }
+            int index = (int) sequence & mask;
+            String event = buffer.get(index);
+            if (event == null) {
+                // 生产者已占有该位置但尚未写入
+                Thread.yield();
+                continue;
+            }
+            buffer.lazySet(index, null);
+            idleNanos = 1_000;
+            try {
+                downstream.publish(event);
+            } catch (RuntimeException e) {
+                dropped.increment();
+            }
+            // 交给下游之后才推进读取序号，flush 看到序号推进时该事件已交付
+            head = sequence + 1;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package Common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于原子序列的ID分配器
+ * 分配、预留与登记均为 O(1) 的无锁操作，已分配的ID不会因实体删除而被重复使用
+ */
+public class SequenceIdAllocator implements IdAllocator {
+    private final AtomicInteger sequence;
+
+    /**
+     * 构造函数，从1开始分配ID
+     */
+    public SequenceIdAllocator() {
+        this(0);
+    }
+
+    /**
+     * 构造函数
+     * @param initial 初始值，第一个分配的ID为 initial + 1
+     */
+    public SequenceIdAllocator(int initial) {
+        if (initial < 0) {
+            throw new IllegalArgumentException("初始值不能为负数");
+        }
+        this.sequence = new AtomicInteger(initial);
+    }
+
+    @Override
+    public int next() {
+        return reserve(1);
+    }
+
+    @Override
+    public int reserve(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("预留数量必须为正数");
+        }
+        while (true) {
+            int current = sequence.get();
+            if (current > Integer.MAX_VALUE - count) {
+                throw new IllegalStateException("可分配的ID已耗尽");
+            }
+            if (sequence.compareAndSet(current, current + count)) {
+                return current + 1;
+            }
+        }
+    }
+
+    @Override
+    public void observe(int id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    @Override
+    public int current() {
+        return sequence.get();
+    }
+}
@@ -0,0 +1,78 @@
+package Common;
+
+import UserAndHousehold.User;
+
+/**
+ * 会话类，表示一个已登录用户的访问凭证
+ * 由 SessionManager 在登录时签发，所有需要身份的操作均以会话作为调用上下文
+ */
+public class Session {
+    private final String token;
+    private final User user;
+    private final long createdAt;
+    // 最近一次访问时间，用于判断会话是否超时
+    private volatile long lastAccessedAt;
+
+    /**
+     * 构造函数
+     * @param token 会话令牌
+     * @param user 登录用户
+     * @param createdAt 创建时间戳（毫秒）
+     */
+    Session(String token, User user, long createdAt) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.lastAccessedAt = createdAt;
+    }
+
+    /**
+     * 获取会话令牌
+     * @return 会话令牌
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * 获取会话所属用户
+     * @return 登录用户
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * 获取会话创建时间
+     * @return 创建时间戳（毫秒）
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * 获取最近一次访问时间
+     * @return 访问时间戳（毫秒）
+     */
+    public long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    /**
+     * 更新最近一次访问时间
+     * @param now 当前时间戳（毫秒）
+     */
+    void touch(long now) {
+        lastAccessedAt = now;
+    }
+
+    /**
+     * 重写toString方法，令牌只显示前8位
+     * @return 会话对象的字符串表示
+     */
+    @Override
+    public String toString() {
+        return "Session{token='" + token.substring(0, Math.min(8, token.length())) + "..., user='"
+                + user.getLoginName() + "}";
+    }
+}
@@ -0,0 +1,142 @@
+package Common;
+
+import NormalException.InvalidUserException;
+import UserAndHousehold.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 会话管理类，负责签发、校验与注销会话
+ *
+ * 会话令牌由 SecureRandom 生成的 32 字节随机数编码而成，不可预测；
+ * 会话保存在并发映射中，多个用户可同时登录并并发操作系统。
+ * 超过空闲时限未访问的会话在下一次校验时失效；未注销就被遗弃的会话不会再被校验，
+ * 因此每签发一定数量的会话顺带清除一次全部超时会话，避免会话映射无限增长。
+ */
+public class SessionManager {
+    // 默认空闲时限：30分钟
+    public static final long DEFAULT_IDLE_TIMEOUT = 30 * 60 * 1000L;
+
+    private static final int TOKEN_BYTES = 32;
+    // 每签发多少个会话清除一次超时会话
+    private static final int PURGE_INTERVAL = 64;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    /**
+     * 为用户签发一个新会话
+     * @param user 登录用户
+     * @return 新会话
+     */
+    public Session open(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("用户不能为空");
+        }
+        if (openCount.incrementAndGet() % PURGE_INTERVAL == 0) {
+            purgeExpired();
+        }
+        while (true) {
+            byte[] bytes = new byte[TOKEN_BYTES];
+            random.nextBytes(bytes);
+            Session session = new Session(encoder.encodeToString(bytes), user, System.currentTimeMillis());
+            // 令牌碰撞的概率可以忽略，仍然保证不覆盖已有会话
+            if (sessions.putIfAbsent(session.getToken(), session) == null) {
+                return session;
+            }
+        }
+    }
+
+    /**
+     * 根据令牌查找有效会话，并更新其访问时间
+     * @param token 会话令牌
+     * @return 有效会话，令牌无效或会话已超时时返回null
+     */
+    public Session find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.getLastAccessedAt() > idleTimeout) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * 校验会话是否仍然有效
+     * @param session 会话
+     * @return 会话所属用户
+     * @throws InvalidUserException 当会话为空、已注销或已超时时抛出
+     */
+    public User validate(Session session) throws InvalidUserException {
+        if (session == null || find(session.getToken()) != session) {
+            throw new InvalidUserException("会话无效或已过期，请重新登录！");
+        }
+        return session.getUser();
+    }
+
+    /**
+     * 注销会话
+     * @param session 会话
+     */
+    public void close(Session session) {
+        if (session != null) {
+            sessions.remove(session.getToken(), session);
+        }
+    }
+
+    /**
+     * 注销用户的全部会话，用于删除用户等场合
+     * @param user 用户
+     */
+    public void closeAll(User user) {
+        sessions.values().removeIf(session -> session.getUser().equals(user));
+    }
+
+    /**
+     * 清除全部已超时的会话，签发会话时定期调用，也可由调用方主动调用
+     */
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getLastAccessedAt() > idleTimeout) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 设置会话空闲时限
+     * @param idleTimeout 空闲时限（毫秒）
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("空闲时限必须为正数");
+        }
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * 获取当前有效会话数量（包含尚未清除的超时会话）
+     * @return 会话数量
+     */
+    public int size() {
+        return sessions.size();
+    }
+}
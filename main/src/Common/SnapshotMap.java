@@ -0,0 +1,176 @@
+package Common;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带只读快照的映射类
+ *
+ * 包装一个映射，并缓存其全部值的不可修改列表：快照在第一次读取时构造，此后在映射被修改前
+ * 一直共享同一个列表，反复遍历不再分配内存。映射的每次修改都会递增版本号，
+ * 快照记录构造时的版本号，版本号不一致时重新构造，因此不会返回修改之前的旧快照。
+ *
+ * 原子性与线程安全性由被包装的映射决定：包装 ConcurrentMap 时 putIfAbsent、remove(key, value)
+ * 等操作保持原子；包装普通映射时由调用方加锁保护。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class SnapshotMap<K, V> extends AbstractMap<K, V> {
+    private final Map<K, V> map;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<V> snapshot;
+
+    /**
+     * 构造函数
+     * @param map 被包装的映射，此后只能通过本对象修改
+     */
+    public SnapshotMap(Map<K, V> map) {
+        if (map == null) {
+            throw new IllegalArgumentException("映射不能为空");
+        }
+        this.map = map;
+    }
+
+    /**
+     * 获取全部值的只读快照，按被包装映射的迭代顺序排列
+     * 映射未被修改时多次调用返回同一个列表
+     * @return 不可修改的值列表
+     */
+    public List<V> snapshot() {
+        Snapshot<V> current = snapshot;
+        long expected = version.get();
+        if (current != null && current.version == expected) {
+            return current.values;
+        }
+        // 先读取版本号再复制，复制期间发生的修改会使该快照在下次读取时失效
+        List<V> values = Collections.unmodifiableList(new ArrayList<>(map.values()));
+        snapshot = new Snapshot<>(expected, values);
+        return values;
+    }
+
+    @Override
+    public V get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previous = map.put(key, value);
+        version.incrementAndGet();
+        return previous;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V previous = map.putIfAbsent(key, value);
+        if (previous == null) {
+            version.incrementAndGet();
+        }
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V previous = map.remove(key);
+        if (previous != null) {
+            version.incrementAndGet();
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean removed = map.remove(key, value);
+        if (removed) {
+            version.incrementAndGet();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * 获取映射项集合，通过迭代器删除映射项同样会使快照失效
+     * @return 映射项集合
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                Iterator<Entry<K, V>> iterator = map.entrySet().iterator();
+                return new Iterator<Entry<K, V>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        Entry<K, V> entry = iterator.next();
+                        return new SimpleEntry<K, V>(entry) {
+                            @Override
+                            public V setValue(V value) {
+                                super.setValue(value);
+                                V previous = entry.setValue(value);
+                                version.incrementAndGet();
+                                return previous;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        version.incrementAndGet();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    /**
+     * 快照及其对应的版本号
+     */
+    private static final class Snapshot<V> {
+        private final long version;
+        private final List<V> values;
+
+        private Snapshot(long version, List<V> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+}
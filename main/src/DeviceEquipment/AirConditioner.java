@@ -1,7 +1,6 @@
 package DeviceEquipment;
 
 import EmissionReduction.EnergyReporting;
-import EmissionReduction.RunningLog;
 import com.alibaba.fastjson2.JSON;
 
 import java.util.Date;
@@ -11,8 +10,8 @@ import java.util.Date;
  * 表示一个空调设备，提供获取功率和运行报告的功能
  */
 public class AirConditioner extends Device implements EnergyReporting {
-    private double currTemp;
-    private double targetTemp;
+    private volatile double currTemp;
+    private volatile double targetTemp;
     private static final double BASE_POWER = 100.0;
 
     // 基础功率
@@ -43,6 +42,8 @@ public class AirConditioner extends Device implements EnergyReporting {
 
     /**
      * 获取设备运行报告
+     * 通过运行日志的能耗索引得到时间段内的开机时长，与当前功率相乘得到能耗，
+     * 查询开销与日志历史长度无关
      * @param startTime 开始时间
      * @param endTime 结束时间
      * @return 设备运行报告值，基于功率与运行时间的乘积计算得出
@@ -55,35 +56,8 @@ public class AirConditioner extends Device implements EnergyReporting {
                 throw new IllegalArgumentException("时间范围错误");
             }
 
-            double totalEnergy = 0.0;
-            Date lastPowerOnTime = null;
-
-            // 遍历运行日志，计算能耗
-            for (RunningLog log : getRunningLogs()) {
-                Date logTime = log.getDateTime();
-
-                // 只处理时间范围内的日志
-                if (logTime.before(startTime) || logTime.after(endTime)) {
-                    continue;
-                }
-
-                if ("powerOn".equals(log.getEvent())) {
-                    lastPowerOnTime = logTime;
-                } else if ("powerOff".equals(log.getEvent()) && lastPowerOnTime != null) {
-                    // 计算这一段运行时间的能耗
-                    long durationMillis = logTime.getTime() - lastPowerOnTime.getTime();
-                    totalEnergy += getPower() * durationMillis / 1000.0 / 3600.0;
-                    lastPowerOnTime = null; // 重置
-                }
-            }
-
-            // 处理设备在结束时间仍处于开启状态的情况
-            if (lastPowerOnTime != null && isPowerStatus()) {
-                long durationMillis = endTime.getTime() - lastPowerOnTime.getTime();
-                totalEnergy += getPower() * durationMillis / 1000.0 / 3600.0;
-            }
-
-            return totalEnergy;
+            long durationMillis = getPoweredOnMillis(startTime, endTime);
+            return getPower() * durationMillis / 1000.0 / 3600.0;
         } catch (IllegalArgumentException e) {
             System.out.println("时间参数错误：" + e.getMessage());
             return 0;
@@ -95,7 +69,11 @@ public class AirConditioner extends Device implements EnergyReporting {
      * @param currTemp 当前温度
      */
     public void setCurrTemp(double currTemp) {
+        double oldTemp = this.currTemp;
         this.currTemp = currTemp;
+        if (Double.compare(oldTemp, currTemp) != 0) {
+            firePropertyChanged(DeviceProperty.CURR_TEMP);
+        }
     }
 
     /**
@@ -111,7 +89,11 @@ public class AirConditioner extends Device implements EnergyReporting {
      * @param targetTemp 目标温度
      */
     public void setTargetTemp(double targetTemp) {
+        double oldTemp = this.targetTemp;
         this.targetTemp = targetTemp;
+        if (Double.compare(oldTemp, targetTemp) != 0) {
+            firePropertyChanged(DeviceProperty.TARGET_TEMP);
+        }
     }
 
     /**
@@ -7,8 +7,8 @@ import com.alibaba.fastjson2.JSON;
  *  表示体重秤设备
  */
 public class BathroomScale extends Device {
-    private double bodyMass;
-    private int batteryLevel;
+    private volatile double bodyMass;
+    private volatile int batteryLevel;
 
     /**
      *  构造函数，调用父类的构造函数初始化参数
@@ -39,7 +39,11 @@ public class BathroomScale extends Device {
             if (bodyMass < 0) {
                 throw new IllegalArgumentException("体重不能为负数");
             }
+            double oldMass = this.bodyMass;
             this.bodyMass = bodyMass;
+            if (Double.compare(oldMass, bodyMass) != 0) {
+                firePropertyChanged(DeviceProperty.BODY_MASS);
+            }
         }
         catch (Exception e){
             System.out.println(e.getMessage());
@@ -63,7 +67,11 @@ public class BathroomScale extends Device {
             if (batteryLevel < 0 || batteryLevel > 100) {
                 throw new IllegalArgumentException("电量应在0-100之间");
             }
+            int oldLevel = this.batteryLevel;
             this.batteryLevel = batteryLevel;
+            if (oldLevel != batteryLevel) {
+                firePropertyChanged(DeviceProperty.BATTERY_LEVEL);
+            }
         }
         catch (Exception e){
             System.out.println(e.getMessage());
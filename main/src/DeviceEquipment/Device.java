@@ -1,23 +1,29 @@
 package DeviceEquipment;
 
 import EmissionReduction.RunningLog;
+import EmissionReduction.RunningLogStore;
 
-import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 设备抽象类
  * 含有设备ID、名称、是否在线、是否运行、制造商等信息
+ *
+ * 设备可被多个线程同时操作：状态字段对所有线程立即可见，开关机的状态切换是原子的，
+ * 运行日志存储自身是线程安全的，观察者列表在通知期间允许并发增删。
  */
 public abstract class Device {
     protected int deviceId;
     protected String name;
-    protected boolean isOnline;
-    protected boolean powerStatus;
+    protected volatile boolean isOnline;
+    protected volatile boolean powerStatus;
     protected Manufacturer manufacturer;
-    protected List<RunningLog> runningLogs = new ArrayList<>();
+    // 按时间排序的运行日志，支持按时间段二分查找
+    protected RunningLogStore runningLogs = new RunningLogStore();
     // 观察者列表，用于存储所有观察该设备的观察者
-    protected List<DeviceObserver> observers = new ArrayList<>();
+    protected final CopyOnWriteArrayList<DeviceObserver> observers = new CopyOnWriteArrayList<>();
 
 
     /**
@@ -39,11 +45,15 @@ public abstract class Device {
      * 该方法用于将设备设置为开启状态，并打印设备开启信息。
      */
     public void powerOn(){
-        boolean oldStatus = powerStatus;
-        powerStatus = true; // 设置电源状态为开启
-        // 如果状态发生变化，通知所有观察者
+        boolean oldStatus;
+        synchronized (this) {
+            oldStatus = powerStatus;
+            powerStatus = true; // 设置电源状态为开启
+        }
+        // 如果状态发生变化，在锁外通知所有观察者
         if (!oldStatus) {
             notifyObservers();
+            firePropertyChanged(DeviceProperty.POWER_STATUS);
         }
     }
 
@@ -52,11 +62,15 @@ public abstract class Device {
      * 将设备状态设置为关闭，并输出关闭信息
      */
     public void powerOff(){
-        boolean oldStatus = powerStatus;
-        powerStatus = false; // 设置电源状态为关闭
-        // 如果状态发生变化，通知所有观察者
+        boolean oldStatus;
+        synchronized (this) {
+            oldStatus = powerStatus;
+            powerStatus = false; // 设置电源状态为关闭
+        }
+        // 如果状态发生变化，在锁外通知所有观察者
         if (oldStatus) {
             notifyObservers();
+            firePropertyChanged(DeviceProperty.POWER_STATUS);
         }
     }
 
@@ -101,6 +115,38 @@ public abstract class Device {
         return runningLogs;
     }
 
+    /**
+     * 获取运行日志存储，可按位置直接读取日志的各列而不构造日志对象
+     *
+     * @return 运行日志存储
+     */
+    public RunningLogStore getRunningLogStore() {
+        return runningLogs;
+    }
+
+    /**
+     * 获取指定时间段内的运行日志
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 时间段 [startTime, endTime] 内按时间升序排列的运行日志
+     */
+    public List<RunningLog> getRunningLogs(Date startTime, Date endTime) {
+        return runningLogs.range(startTime, endTime);
+    }
+
+
+        /**
+     * 获取指定时间段内设备处于开机状态的总时长
+     * 跨越时间段边界的开机区间按边界截断；最后一次开机后尚未关机的区间，仅在设备当前仍开启时计入
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 开机时长（毫秒）
+     */
+    public long getPoweredOnMillis(Date startTime, Date endTime) {
+        return runningLogs.getPoweredOnMillis(startTime.getTime(), endTime.getTime(), powerStatus);
+    }
 
         /**
      * 添加运行日志到日志列表中
@@ -116,8 +162,8 @@ public abstract class Device {
      * @param observer 要添加的观察者对象
      */
     public void addObserver(DeviceObserver observer) {
-        if (observer != null && !observers.contains(observer)) {
-            observers.add(observer);
+        if (observer != null) {
+            observers.addIfAbsent(observer);
         }
     }
     
@@ -138,6 +184,16 @@ public abstract class Device {
         }
     }
 
+    /**
+     * 通知所有观察者设备的某个属性值发生变化
+     * @param property 发生变化的属性
+     */
+    protected void firePropertyChanged(DeviceProperty property) {
+        for (DeviceObserver observer : observers) {
+            observer.propertyChanged(this, property);
+        }
+    }
+
     /**
      * 将对象格式化为JSON字符串
      * @return 返回表示当前对象的JSON格式字符串
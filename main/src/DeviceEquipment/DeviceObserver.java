@@ -10,4 +10,13 @@ public interface DeviceObserver {
      * @param device 状态发生变化的设备对象
      */
     void update(Device device);
+
+    /**
+     * 当设备的某个属性值发生变化时被调用，默认不处理
+     * 电源状态变化时先调用 update，再以 POWER_STATUS 调用本方法
+     * @param device 属性发生变化的设备对象
+     * @param property 发生变化的属性
+     */
+    default void propertyChanged(Device device, DeviceProperty property) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package DeviceEquipment;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 设备属性枚举，统一以 double 读取各类设备的状态属性
+ *
+ * 布尔属性读取为 1（真）或 0（假）；设备不具有该属性时读取为 NaN。
+ * 读取过程不分配内存，可用于高频的条件评估。
+ */
+public enum DeviceProperty {
+    POWER_STATUS(true, "powerStatus", "power", "电源") {
+        @Override
+        public double read(Device device) {
+            return device.isPowerStatus() ? 1 : 0;
+        }
+    },
+    ONLINE(true, "online", "在线") {
+        @Override
+        public double read(Device device) {
+            return device.isOnline() ? 1 : 0;
+        }
+    },
+    TARGET_TEMP(false, "targetTemp", "目标温度") {
+        @Override
+        public double read(Device device) {
+            return device instanceof AirConditioner ? ((AirConditioner) device).getTargetTemp() : Double.NaN;
+        }
+    },
+    CURR_TEMP(false, "currTemp", "当前温度") {
+        @Override
+        public double read(Device device) {
+            return device instanceof AirConditioner ? ((AirConditioner) device).getCurrTemp() : Double.NaN;
+        }
+    },
+    BRIGHTNESS(false, "brightness", "亮度") {
+        @Override
+        public double read(Device device) {
+            return device instanceof LightBulb ? ((LightBulb) device).getBrightness() : Double.NaN;
+        }
+    },
+    COLOR_TEMP(false, "colorTemp", "色温") {
+        @Override
+        public double read(Device device) {
+            return device instanceof LightBulb ? ((LightBulb) device).getColorTemp() : Double.NaN;
+        }
+    },
+    LOCKED(true, "locked", "锁定") {
+        @Override
+        public double read(Device device) {
+            if (device instanceof SmartLock) {
+                return ((SmartLock) device).isLocked() ? 1 : 0;
+            }
+            return Double.NaN;
+        }
+    },
+    BATTERY_LEVEL(false, "batteryLevel", "battery", "电量") {
+        @Override
+        public double read(Device device) {
+            if (device instanceof SmartLock) {
+                return ((SmartLock) device).getBatteryLevel();
+            }
+            if (device instanceof BathroomScale) {
+                return ((BathroomScale) device).getBatteryLevel();
+            }
+            return Double.NaN;
+        }
+    },
+    BODY_MASS(false, "bodyMass", "体重") {
+        @Override
+        public double read(Device device) {
+            return device instanceof BathroomScale ? ((BathroomScale) device).getBodyMass() : Double.NaN;
+        }
+    };
+
+    // 属性名称（不区分大小写）到属性的映射
+    private static final Map<String, DeviceProperty> NAMES = new HashMap<>();
+
+    static {
+        for (DeviceProperty property : values()) {
+            for (String name : property.names) {
+                NAMES.put(name.toLowerCase(Locale.ROOT), property);
+            }
+        }
+    }
+
+    private final boolean bool;
+    private final String[] names;
+
+    DeviceProperty(boolean bool, String... names) {
+        this.bool = bool;
+        this.names = names;
+    }
+
+    /**
+     * 读取设备的属性值
+     * @param device 设备
+     * @return 属性值，布尔属性为 1 或 0，设备不具有该属性时为 NaN
+     */
+    public abstract double read(Device device);
+
+    /**
+     * 判断属性是否为布尔属性
+     * @return 布尔属性返回true
+     */
+    public boolean isBoolean() {
+        return bool;
+    }
+
+    /**
+     * 获取属性的名称，即条件表达式中使用的英文名称
+     * @return 属性名称
+     */
+    public String getPropertyName() {
+        return names[0];
+    }
+
+    /**
+     * 按名称查找属性，英文名称不区分大小写
+     * @param name 属性名称或别名
+     * @return 属性，名称无法识别时返回null
+     */
+    public static DeviceProperty forName(String name) {
+        return NAMES.get(name.toLowerCase(Locale.ROOT));
+    }
+}
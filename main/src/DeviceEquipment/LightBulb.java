@@ -1,7 +1,6 @@
 package DeviceEquipment;
 
 import EmissionReduction.EnergyReporting;
-import EmissionReduction.RunningLog;
 import com.alibaba.fastjson2.JSON;
 
 import java.util.Date;
@@ -11,8 +10,8 @@ import java.util.Date;
  * 表示智能灯泡设备，并包含亮度和颜色温度属性
  */
 public class LightBulb extends Device implements EnergyReporting {
-    private int brightness;
-    private int colorTemp;
+    private volatile int brightness;
+    private volatile int colorTemp;
     private static final double BASE_POWER = 10.0;
 
     /**
@@ -42,6 +41,7 @@ public class LightBulb extends Device implements EnergyReporting {
 
     /**
      * 获取指定时间段内灯泡的耗电量报告
+     * 通过运行日志的能耗索引得到时间段内的开机时长，与当前功率相乘得到耗电量
      * @param startTime 开始时间
      * @param endTime 结束时间
      * @return 灯泡的耗电量报告
@@ -54,37 +54,9 @@ public class LightBulb extends Device implements EnergyReporting {
                 throw new IllegalArgumentException("时间参数无效");
             }
 
-            // 计算设备运行期间的能耗报告
-            // 通过功率乘以运行时间（秒）来计算能耗值
-            Date start = startTime;
-            Date end = null;
-            double report = 0;
-            for(RunningLog log : getRunningLogs()){
-                if(log.getEvent().equals("powerOn"))
-                    start = log.getDateTime();
-                if(log.getEvent().equals("powerOff")){
-                    end = log.getDateTime();
-                }
-                // 计算每次开关机期间的耗电量
-                if( end!= null && end.after(start)){
-                    if(end.getTime() < endTime.getTime()){
-                        // 设备在查询结束时间前关机，计算完整运行时间的耗电量
-                        report += getPower() * (end.getTime() - start.getTime()) / 1000 / 3600.0;
-                    }
-                    else{
-                        // 设备运行超过查询结束时间，只计算到查询结束时间的耗电量
-                        report += getPower() * (endTime.getTime() - start.getTime()) / 1000 / 3600.0;
-                        break;
-                    }
-
-                }
-            }
-            // 处理最后一次开机但未关机的情况
-            if(start != startTime && end == null && start.before(endTime)){
-                report += getPower() * (endTime.getTime() - start.getTime()) / 1000 / 3600.0;
-            }
-
-            return report;
+            // 通过功率乘以运行时间（小时）来计算能耗值
+            long durationMillis = getPoweredOnMillis(startTime, endTime);
+            return getPower() * durationMillis / 1000 / 3600.0;
         }
         catch (IllegalArgumentException e) {
             System.out.println("时间参数无效");
@@ -101,7 +73,11 @@ public class LightBulb extends Device implements EnergyReporting {
             if (brightness < 0 || brightness > 100) {
                 throw new IllegalArgumentException("亮度值必须在0-100之间");
             }
+            int oldBrightness = this.brightness;
             this.brightness = brightness;
+            if (oldBrightness != brightness) {
+                firePropertyChanged(DeviceProperty.BRIGHTNESS);
+            }
         }
         catch (IllegalArgumentException e) {
             System.out.println(e.getMessage());
@@ -125,7 +101,11 @@ public class LightBulb extends Device implements EnergyReporting {
             if (colorTemp < 1000 || colorTemp > 10000) {
                 throw new IllegalArgumentException("色温值必须在1000K-10000K之间");
             }
+            int oldColorTemp = this.colorTemp;
             this.colorTemp = colorTemp;
+            if (oldColorTemp != colorTemp) {
+                firePropertyChanged(DeviceProperty.COLOR_TEMP);
+            }
         }
         catch (IllegalArgumentException e) {
             System.out.println(e.getMessage());
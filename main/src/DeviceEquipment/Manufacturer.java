@@ -1,12 +1,13 @@
 package DeviceEquipment;
 
+import Common.SnapshotMap;
 import NormalException.CannotFindException;
 import NormalException.RepeatedException;
 
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 
 /**
@@ -16,7 +17,8 @@ public class Manufacturer implements DeviceFactory{
     private int manufacturerId;
     private String name;
     private String protocols;
-    private Map<Integer, Device> devices = new LinkedHashMap<>();
+    // 同一制造商的设备分布在多个家庭中，使用并发映射使不同家庭添加设备时互不阻塞，按设备ID排序
+    private SnapshotMap<Integer, Device> devices = new SnapshotMap<>(new ConcurrentSkipListMap<>());
 
     /**
      *  构造函数，初始化参数
@@ -87,10 +89,10 @@ public class Manufacturer implements DeviceFactory{
 
     /**
      *  获取制造商设备列表
-     * @return 设备列表
+     * @return 设备的只读快照，设备增删前多次调用返回同一列表
      */
     public List<Device> getDevices() {
-        return new ArrayList<>(devices.values());
+        return devices.snapshot();
     }
 
     /**
@@ -103,11 +105,9 @@ public class Manufacturer implements DeviceFactory{
                 throw new IllegalArgumentException("设备不能为空");
             }
 
-            if (devices.containsKey(device.getDeviceId())) {
+            if (devices.putIfAbsent(device.getDeviceId(), device) != null) {
                 throw new RepeatedException("设备已存在");
             }
-
-            devices.put(device.getDeviceId(), device);
         }
         catch (RepeatedException e) {
             System.out.println(e.getMessage());
@@ -120,12 +120,10 @@ public class Manufacturer implements DeviceFactory{
      */
     public void removeDevice(Device device) {
         try{
-            for(Device theDevice : devices.values()){
-                if(theDevice.equals(device)){
-                    devices.remove(theDevice.getDeviceId());
-                    System.out.println("删除成功");
-                    return;
-                }
+            Device theDevice = device == null ? null : devices.get(device.getDeviceId());
+            if(theDevice != null && theDevice.equals(device) && devices.remove(theDevice.getDeviceId(), theDevice)){
+                System.out.println("删除成功");
+                return;
             }
             throw new CannotFindException("未找到该设备");
         }
@@ -7,8 +7,8 @@ import com.alibaba.fastjson2.JSON;
  * 描述智能锁设备
  */
 public class SmartLock extends Device{
-    private boolean isLocked;
-    private int batteryLevel;
+    private volatile boolean isLocked;
+    private volatile int batteryLevel;
 
     /**
      * 构造函数
@@ -28,7 +28,11 @@ public class SmartLock extends Device{
      * @param locked 锁定状态标识，true表示锁定，false表示解锁
      */
     public void setLocked(boolean locked) {
+        boolean oldLocked = this.isLocked;
         this.isLocked = locked;
+        if (oldLocked != locked) {
+            firePropertyChanged(DeviceProperty.LOCKED);
+        }
     }
 
     /**
@@ -47,7 +51,11 @@ public class SmartLock extends Device{
      */
     public void setBatteryLevel(int batteryLevel) {
         if (batteryLevel >= 0 && batteryLevel <= 100) {
+            int oldLevel = this.batteryLevel;
             this.batteryLevel = batteryLevel;
+            if (oldLevel != batteryLevel) {
+                firePropertyChanged(DeviceProperty.BATTERY_LEVEL);
+            }
         }
     }
 
@@ -0,0 +1,56 @@
+package EmissionReduction;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 将 Appendable 适配为 Writer，供只接受 Writer 的输出组件使用
+ * 关闭时不会关闭被适配的输出目标
+ */
+final class AppendableWriter extends Writer {
+    private final Appendable out;
+
+    private AppendableWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * 获取与输出目标对应的 Writer，输出目标本身就是 Writer 时直接返回
+     * @param out 输出目标
+     * @return Writer 对象
+     */
+    static Writer of(Appendable out) {
+        return out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            out.append(buffer[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        out.append(str, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        out.append(csq);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,134 @@
+package EmissionReduction;
+
+/**
+ * 能耗索引类，记录设备每一段开机区间及其累计开机时长（前缀和）
+ *
+ * 开关机日志按时间顺序依次输入：设备关闭时遇到 powerOn 开启一个区间，
+ * 设备开启时遇到 powerOff 关闭该区间，重复的开机或关机事件被忽略。
+ * 任意时间段内的开机时长只需两次二分查找与一次前缀和相减即可得到，
+ * 与日志历史长度无关。
+ */
+class EnergyIndex {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private long[] onStarts = new long[0];
+    private long[] onEnds = new long[0];
+    // cumulative[i] 为前 i 个已关闭区间的开机时长之和
+    private long[] cumulative = new long[1];
+    private int intervals;
+    // 尚未关闭的开机区间的开始时间，不存在时为 NONE
+    private long openStart = NONE;
+
+    /**
+     * 清空索引
+     */
+    void clear() {
+        onStarts = new long[0];
+        onEnds = new long[0];
+        cumulative = new long[1];
+        intervals = 0;
+        openStart = NONE;
+    }
+
+    /**
+     * 按时间顺序输入一次开机事件
+     * @param time 事件时间戳（毫秒）
+     */
+    void powerOn(long time) {
+        if (openStart == NONE) {
+            openStart = time;
+        }
+    }
+
+    /**
+     * 按时间顺序输入一次关机事件
+     * @param time 事件时间戳（毫秒）
+     */
+    void powerOff(long time) {
+        if (openStart == NONE) {
+            return;
+        }
+        ensureCapacity(intervals + 1);
+        onStarts[intervals] = openStart;
+        onEnds[intervals] = time;
+        cumulative[intervals + 1] = cumulative[intervals] + (time - openStart);
+        intervals++;
+        openStart = NONE;
+    }
+
+    /**
+     * 计算时间段 [start, end] 内的开机时长，跨越时间段边界的区间按边界截断
+     * @param start 开始时间戳（毫秒）
+     * @param end 结束时间戳（毫秒）
+     * @param includeOpen 是否计入尚未关闭的开机区间（按持续到 end 计算）
+     * @return 开机时长（毫秒）
+     */
+    long poweredOnMillis(long start, long end, boolean includeOpen) {
+        if (start >= end) {
+            return 0;
+        }
+        long total = 0;
+
+        // 第一个结束时间晚于 start 的区间，与最后一个开始时间早于 end 的区间
+        int first = firstEndAfter(start);
+        int last = firstStartAtOrAfter(end) - 1;
+        if (first <= last) {
+            total = cumulative[last + 1] - cumulative[first];
+            if (onStarts[first] < start) {
+                total -= start - onStarts[first];
+            }
+            if (onEnds[last] > end) {
+                total -= onEnds[last] - end;
+            }
+        }
+
+        if (includeOpen && openStart != NONE && openStart < end) {
+            total += end - Math.max(start, openStart);
+        }
+        return total;
+    }
+
+    private int firstEndAfter(long time) {
+        int low = 0;
+        int high = intervals;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (onEnds[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstStartAtOrAfter(long time) {
+        int low = 0;
+        int high = intervals;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (onStarts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > onStarts.length) {
+            int newCapacity = Math.max(capacity, Math.max(INITIAL_CAPACITY, onStarts.length * 2));
+            long[] newStarts = new long[newCapacity];
+            long[] newEnds = new long[newCapacity];
+            long[] newCumulative = new long[newCapacity + 1];
+            System.arraycopy(onStarts, 0, newStarts, 0, intervals);
+            System.arraycopy(onEnds, 0, newEnds, 0, intervals);
+            System.arraycopy(cumulative, 0, newCumulative, 0, intervals + 1);
+            onStarts = newStarts;
+            onEnds = newEnds;
+            cumulative = newCumulative;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package EmissionReduction;
+
+import DeviceEquipment.Device;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 家庭导出引擎
+ *
+ * 对每个家庭只遍历一次房间、设备与运行日志，并将遍历事件同时分发给多个访问者，
+ * 增加导出格式只增加输出量，而不会重复遍历或复制房间、设备列表。
+ * 运行日志直接从 RunningLogStore 的各列读取，每条日志只读取一次。
+ * 导出期间持有家庭的读锁，房间与设备不会被修改；每个设备的日志在该设备的读锁内读取，
+ * 导出不阻塞其他家庭的操作，也不阻塞对同一家庭的其他读取。
+ *
+ * 某个访问者写入失败后不再接收后续事件，其余访问者不受影响，继续完成导出。
+ */
+public final class HouseholdExportEngine {
+
+    private HouseholdExportEngine() {
+    }
+
+    /**
+     * 使用单个访问者导出家庭
+     * @param household 家庭对象
+     * @param visitor 访问者
+     * @throws IOException 访问者写入失败时抛出
+     */
+    public static void export(Household household, HouseholdExportVisitor visitor) throws IOException {
+        IOException failure = export(household, new HouseholdExportVisitor[] {visitor})[0];
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 遍历一次家庭并将事件分发给全部访问者
+     * @param household 家庭对象
+     * @param visitors 访问者列表
+     * @return 与访问者一一对应的失败原因，导出成功的访问者对应 null
+     */
+    public static IOException[] export(Household household, List<HouseholdExportVisitor> visitors) {
+        return export(household, visitors.toArray(new HouseholdExportVisitor[0]));
+    }
+
+    private static IOException[] export(Household household, HouseholdExportVisitor[] visitors) {
+        household.getLock().readLock().lock();
+        try {
+            return exportLocked(household, visitors);
+        } finally {
+            household.getLock().readLock().unlock();
+        }
+    }
+
+    private static IOException[] exportLocked(Household household, HouseholdExportVisitor[] visitors) {
+        IOException[] failures = new IOException[visitors.length];
+        Collection<Room> rooms = household.getRoomsView();
+
+        for (int v = 0; v < visitors.length; v++) {
+            try {
+                visitors[v].startHousehold(household, rooms.size());
+            } catch (IOException e) {
+                failures[v] = e;
+            }
+        }
+        for (Room room : rooms) {
+            Collection<Device> devices = room.getDevicesView();
+            for (int v = 0; v < visitors.length; v++) {
+                if (failures[v] == null) {
+                    try {
+                        visitors[v].startRoom(room, devices.size());
+                    } catch (IOException e) {
+                        failures[v] = e;
+                    }
+                }
+            }
+            for (Device device : devices) {
+                exportDevice(device, visitors, failures);
+            }
+            for (int v = 0; v < visitors.length; v++) {
+                if (failures[v] == null) {
+                    try {
+                        visitors[v].endRoom(room);
+                    } catch (IOException e) {
+                        failures[v] = e;
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < visitors.length; v++) {
+            if (failures[v] == null) {
+                try {
+                    visitors[v].endHousehold(household);
+                } catch (IOException e) {
+                    failures[v] = e;
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static void exportDevice(Device device, HouseholdExportVisitor[] visitors, IOException[] failures) {
+        RunningLogStore logs = device.getRunningLogStore();
+        logs.readLock().lock();
+        try {
+            exportLogs(device, logs, visitors, failures);
+        } finally {
+            logs.readLock().unlock();
+        }
+    }
+
+    private static void exportLogs(Device device, RunningLogStore logs,
+                                   HouseholdExportVisitor[] visitors, IOException[] failures) {
+        int size = logs.sizeUnlocked();
+        for (int v = 0; v < visitors.length; v++) {
+            if (failures[v] == null) {
+                try {
+                    visitors[v].startDevice(device, size);
+                } catch (IOException e) {
+                    failures[v] = e;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            long time = logs.time(i);
+            String event = logs.event(i);
+            RunningLog.Type type = logs.type(i);
+            String note = logs.note(i);
+            for (int v = 0; v < visitors.length; v++) {
+                if (failures[v] == null) {
+                    try {
+                        visitors[v].visitLog(time, event, type, note);
+                    } catch (IOException e) {
+                        failures[v] = e;
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < visitors.length; v++) {
+            if (failures[v] == null) {
+                try {
+                    visitors[v].endDevice(device);
+                } catch (IOException e) {
+                    failures[v] = e;
+                }
+            }
+        }
+    }
+}
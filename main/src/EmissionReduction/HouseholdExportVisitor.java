@@ -0,0 +1,72 @@
+package EmissionReduction;
+
+import DeviceEquipment.Device;
+import UserAndHousehold.Household;
+import UserAndHousehold.Room;
+
+import java.io.IOException;
+
+/**
+ * 家庭导出访问者接口
+ *
+ * 导出引擎（见 HouseholdExportEngine）按 家庭 → 房间 → 设备 → 运行日志 的顺序遍历一次家庭，
+ * 并将遍历事件依次分发给每个访问者，由访问者将其写为各自的格式。
+ * 运行日志以列值的形式传入，遍历过程中不构造日志对象。
+ */
+public interface HouseholdExportVisitor {
+
+    /**
+     * 开始访问家庭
+     * @param household 家庭对象
+     * @param roomCount 房间数量
+     * @throws IOException 写入失败时抛出
+     */
+    public void startHousehold(Household household, int roomCount) throws IOException;
+
+    /**
+     * 开始访问房间
+     * @param room 房间对象
+     * @param deviceCount 房间内的设备数量
+     * @throws IOException 写入失败时抛出
+     */
+    public void startRoom(Room room, int deviceCount) throws IOException;
+
+    /**
+     * 开始访问设备
+     * @param device 设备对象
+     * @param logCount 设备的运行日志数量
+     * @throws IOException 写入失败时抛出
+     */
+    public void startDevice(Device device, int logCount) throws IOException;
+
+    /**
+     * 访问一条运行日志
+     * @param time 日志时间戳（毫秒）
+     * @param event 日志事件
+     * @param type 日志类型
+     * @param note 日志备注
+     * @throws IOException 写入失败时抛出
+     */
+    public void visitLog(long time, String event, RunningLog.Type type, String note) throws IOException;
+
+    /**
+     * 结束访问设备
+     * @param device 设备对象
+     * @throws IOException 写入失败时抛出
+     */
+    public void endDevice(Device device) throws IOException;
+
+    /**
+     * 结束访问房间
+     * @param room 房间对象
+     * @throws IOException 写入失败时抛出
+     */
+    public void endRoom(Room room) throws IOException;
+
+    /**
+     * 结束访问家庭，访问者应在此时将缓冲的内容全部写出到输出目标
+     * @param household 家庭对象
+     * @throws IOException 写入失败时抛出
+     */
+    public void endHousehold(Household household) throws IOException;
+}
@@ -4,7 +4,10 @@ import DeviceEquipment.Device;
 import UserAndHousehold.Household;
 import UserAndHousehold.Room;
 
+import java.io.Flushable;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 
 public class HtmlRunningLogFormatter implements RunningLogFormatter {
     private static volatile HtmlRunningLogFormatter instance;
@@ -23,72 +26,102 @@ public class HtmlRunningLogFormatter implements RunningLogFormatter {
     }
 
     /**
-     * 将指定的家庭信息格式化为HTML格式的字符串。
+     * 创建将家庭信息写为HTML的访问者。
+     * 房间、设备及运行日志逐条直接写出，不在内存中拼接完整文档。
      *
-     * @param household 需要格式化的家庭对象，包含房间、设备及运行日志等信息
-     * @return 格式化后的HTML字符串，展示家庭结构及其设备运行日志
+     * @param out 输出目标，导出结束时刷新但不会关闭
+     * @return 导出访问者
      */
     @Override
-    public String format(Household household) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        StringBuilder htmlBuilder = new StringBuilder();
-
-        // 构建HTML文档的基本结构和样式，并输出家庭基本信息
-        htmlBuilder.append("<!DOCTYPE html>")
-                 .append("<html>")
-                 .append("<head>")
-                 .append("<meta charset=\"UTF-8\">")
-                 .append("<style>")
-                 .append("table, th, td { border: 1px solid black; border-collapse: collapse; }")
-                 .append("</style>")
-                 .append("</head>")
-                 .append("<body>")
-                 .append("<p>智能家居生态系统\"HomeSphereG\" v3.0</p>")
-                 .append("<p>householdId：").append(household.getHouseholdId()).append("， address：").append(household.getAddress()).append("</p>")
-                 .append("<ul>");
-
-        // 遍历所有房间并输出房间信息
-        for (Room room : household.getRooms()) {
-            htmlBuilder.append("<li>roomId：").append(room.getRoomId()).append("， roomName：").append(room.getName()).append("</li>");
-
-            // 遍历房间内所有设备并输出设备信息及运行日志
-            for (Device device : room.getDevices()) {
-                htmlBuilder.append("<table>")
-                         .append("<tr>")
-                         .append("<th>deviceId</th>")
-                         .append("<td>").append(device.getDeviceId()).append("</td>")
-                         .append("<th>deviceName</th>")
-                         .append("<td>").append(device.getName()).append("</td>")
-                         .append("</tr>")
-                         .append("<tr>")
-                         .append("<th colspan=\"4\">runningLogs：</th>")
-                         .append("</tr>")
-                         .append("<td colspan=\"4\">")
-                         .append("<ul>");
-
-                // 遍历设备的所有运行日志并格式化输出
-                for (RunningLog log : device.getRunningLogs()) {
-                    htmlBuilder.append("<li>").append(dateFormat.format(log.getDateTime()))
-                             .append(", ").append(log.getEvent())
-                             .append(", ").append(log.getType())
-                             .append(", ").append(log.getNote() != null ? log.getNote() : "")
-                             .append("</li>");
-                }
-
-                htmlBuilder.append("</ul>")
-                         .append("</td>")
-                         .append("</table>")
-                         .append("</p>");
-            }
-            htmlBuilder.append("</p>");
+    public HouseholdExportVisitor createVisitor(Appendable out) {
+        return new HtmlVisitor(out);
+    }
+
+    /**
+     * HTML 导出访问者，展示家庭结构及其设备运行日志
+     */
+    private static class HtmlVisitor implements HouseholdExportVisitor {
+        private final Appendable out;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        // 复用的日期对象，避免每条日志构造一个 Date
+        private final Date date = new Date();
+
+        private HtmlVisitor(Appendable out) {
+            this.out = out;
         }
 
-        // 完成HTML文档结构
-        htmlBuilder.append("</ul>")
-                 .append("</body>")
-                 .append("</html>");
+        @Override
+        public void startHousehold(Household household, int roomCount) throws IOException {
+            // 构建HTML文档的基本结构和样式，并输出家庭基本信息
+            out.append("<!DOCTYPE html>")
+                     .append("<html>")
+                     .append("<head>")
+                     .append("<meta charset=\"UTF-8\">")
+                     .append("<style>")
+                     .append("table, th, td { border: 1px solid black; border-collapse: collapse; }")
+                     .append("</style>")
+                     .append("</head>")
+                     .append("<body>")
+                     .append("<p>智能家居生态系统\"HomeSphereG\" v3.0</p>")
+                     .append("<p>householdId：").append(String.valueOf(household.getHouseholdId()))
+                     .append("， address：").append(household.getAddress()).append("</p>")
+                     .append("<ul>");
+        }
 
-        return htmlBuilder.toString();
+        @Override
+        public void startRoom(Room room, int deviceCount) throws IOException {
+            out.append("<li>roomId：").append(String.valueOf(room.getRoomId())).append("， roomName：").append(room.getName()).append("</li>");
+        }
+
+        @Override
+        public void startDevice(Device device, int logCount) throws IOException {
+            out.append("<table>")
+                     .append("<tr>")
+                     .append("<th>deviceId</th>")
+                     .append("<td>").append(String.valueOf(device.getDeviceId())).append("</td>")
+                     .append("<th>deviceName</th>")
+                     .append("<td>").append(device.getName()).append("</td>")
+                     .append("</tr>")
+                     .append("<tr>")
+                     .append("<th colspan=\"4\">runningLogs：</th>")
+                     .append("</tr>")
+                     .append("<td colspan=\"4\">")
+                     .append("<ul>");
+        }
+
+        @Override
+        public void visitLog(long time, String event, RunningLog.Type type, String note) throws IOException {
+            date.setTime(time);
+            out.append("<li>").append(dateFormat.format(date))
+                     .append(", ").append(event)
+                     .append(", ").append(String.valueOf(type))
+                     .append(", ").append(note != null ? note : "")
+                     .append("</li>");
+        }
+
+        @Override
+        public void endDevice(Device device) throws IOException {
+            out.append("</ul>")
+                     .append("</td>")
+                     .append("</table>")
+                     .append("</p>");
+        }
+
+        @Override
+        public void endRoom(Room room) throws IOException {
+            out.append("</p>");
+        }
+
+        @Override
+        public void endHousehold(Household household) throws IOException {
+            // 完成HTML文档结构
+            out.append("</ul>")
+                     .append("</body>")
+                     .append("</html>");
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
+        }
     }
 
 }
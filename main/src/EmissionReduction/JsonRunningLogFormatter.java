@@ -4,14 +4,18 @@ import DeviceEquipment.Device;
 import UserAndHousehold.Household;
 import UserAndHousehold.Room;
 
-import java.util.List;
+import com.alibaba.fastjson2.JSONWriter;
 
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONObject;
-
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Date;
 
 public class JsonRunningLogFormatter implements RunningLogFormatter {
+    // 流式输出时缓冲区的刷新阈值（UTF-8 输出为字节数，字符输出为字符数）
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
     private static volatile JsonRunningLogFormatter instance;
 
     private JsonRunningLogFormatter() {
@@ -35,45 +39,192 @@ public class JsonRunningLogFormatter implements RunningLogFormatter {
      */
     @Override
     public String format(Household household) {
-        // 创建 household JSON 对象
-        JSONObject householdJson = new JSONObject();
-        householdJson.put("householdId", household.getHouseholdId());
-        householdJson.put("address", household.getAddress());
-
-        // 创建 rooms 数组
-        List<JSONObject> roomList = new ArrayList<>();
-        for (Room room : household.getRooms()) {
-            JSONObject roomJson = new JSONObject();
-            roomJson.put("roomId", room.getRoomId());
-            roomJson.put("name", room.getName());
-
-            // 创建 devices 数组
-            List<JSONObject> deviceList = new ArrayList<>();
-            for (Device device : room.getDevices()) {
-                JSONObject deviceJson = new JSONObject();
-                deviceJson.put("deviceId", device.getDeviceId());
-                deviceJson.put("devicename", device.getName());
-
-                // 创建 runningLogs 数组
-                List<JSONObject> logList = new ArrayList<>();
-                for (RunningLog log : device.getRunningLogs()) {
-                    JSONObject logJson = new JSONObject();
-                    logJson.put("dateTime", log.getDateTime());
-                    logJson.put("event", log.getEvent());
-                    logJson.put("type", log.getType());
-                    logJson.put("note", log.getNote());
-                    logList.add(logJson);
+        try (JSONWriter jsonWriter = JSONWriter.of()) {
+            HouseholdExportEngine.export(household, new JsonVisitor(jsonWriter, null, null));
+            return jsonWriter.toString();
+        } catch (IOException e) {
+            // 未指定输出目标时不会发生 IO 操作
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 创建以 JSON 写入字符输出目标的访问者
+     *
+     * @param out 字符输出目标，导出结束时刷新但不会关闭
+     * @return 导出访问者
+     */
+    @Override
+    public HouseholdExportVisitor createVisitor(Appendable out) {
+        return new JsonVisitor(JSONWriter.of(), AppendableWriter.of(out), null);
+    }
+
+    /**
+     * 创建以 UTF-8 编码的 JSON 写入输出流的访问者
+     * 家庭 → 房间 → 设备 → 运行日志逐层直接写出，缓冲区超过阈值即刷新到输出流，
+     * 内存占用与日志总量无关
+     *
+     * @param out 输出流，导出结束时刷新但不会关闭
+     * @return 导出访问者
+     */
+    @Override
+    public HouseholdExportVisitor createVisitor(OutputStream out) {
+        return new JsonVisitor(JSONWriter.ofUTF8(), null, out);
+    }
+
+    /**
+     * 获取访问者自身最多缓冲的字节数
+     * 写入器的内容超过刷新阈值才写出，其缓冲区按倍数扩容，最多约为阈值的两倍
+     * @return 缓冲字节数
+     */
+    @Override
+    public int getBufferBytes() {
+        return FLUSH_THRESHOLD * 2;
+    }
+
+    /**
+     * JSON 导出访问者，按层级依次写出家庭、房间、设备与运行日志
+     * 字符串字段值为 null 时省略该字段（与 JSON.toJSONString 的默认行为一致）
+     */
+    private static class JsonVisitor implements HouseholdExportVisitor {
+        private final JSONWriter jsonWriter;
+        // 缓冲区刷新目标，两者均为 null 时全部内容保留在写入器中
+        private final Writer writer;
+        private final OutputStream out;
+        // 复用的日期对象，避免每条日志构造一个 Date
+        private final Date date = new Date();
+        private boolean firstRoom;
+        private boolean firstDevice;
+        private boolean firstLog;
+
+        private JsonVisitor(JSONWriter jsonWriter, Writer writer, OutputStream out) {
+            this.jsonWriter = jsonWriter;
+            this.writer = writer;
+            this.out = out;
+        }
+
+        @Override
+        public void startHousehold(Household household, int roomCount) {
+            jsonWriter.startObject();
+            jsonWriter.writeName("householdId");
+            jsonWriter.writeColon();
+            jsonWriter.writeInt32(household.getHouseholdId());
+            writeString("address", household.getAddress());
+
+            // 写出 rooms 数组
+            jsonWriter.writeName("rooms");
+            jsonWriter.writeColon();
+            jsonWriter.startArray();
+            firstRoom = true;
+        }
+
+        @Override
+        public void startRoom(Room room, int deviceCount) {
+            if (!firstRoom) {
+                jsonWriter.writeComma();
+            }
+            firstRoom = false;
+            jsonWriter.startObject();
+            jsonWriter.writeName("roomId");
+            jsonWriter.writeColon();
+            jsonWriter.writeInt32(room.getRoomId());
+            writeString("name", room.getName());
+
+            // 写出 devices 数组
+            jsonWriter.writeName("devices");
+            jsonWriter.writeColon();
+            jsonWriter.startArray();
+            firstDevice = true;
+        }
+
+        @Override
+        public void startDevice(Device device, int logCount) {
+            if (!firstDevice) {
+                jsonWriter.writeComma();
+            }
+            firstDevice = false;
+            jsonWriter.startObject();
+            jsonWriter.writeName("deviceId");
+            jsonWriter.writeColon();
+            jsonWriter.writeInt32(device.getDeviceId());
+            writeString("devicename", device.getName());
+
+            // 写出 runningLogs 数组
+            jsonWriter.writeName("runningLogs");
+            jsonWriter.writeColon();
+            jsonWriter.startArray();
+            firstLog = true;
+        }
+
+        @Override
+        public void visitLog(long time, String event, RunningLog.Type type, String note) throws IOException {
+            if (!firstLog) {
+                jsonWriter.writeComma();
+            }
+            firstLog = false;
+            date.setTime(time);
+            jsonWriter.startObject();
+            jsonWriter.writeName("dateTime");
+            jsonWriter.writeColon();
+            jsonWriter.writeAny(date);
+            writeString("event", event);
+            if (type != null) {
+                jsonWriter.writeName("type");
+                jsonWriter.writeColon();
+                jsonWriter.writeAny(type);
+            }
+            writeString("note", note);
+            jsonWriter.endObject();
+
+            // 缓冲区超过阈值时刷新到输出目标
+            if (jsonWriter.size() >= FLUSH_THRESHOLD) {
+                flushBuffer();
+            }
+        }
+
+        @Override
+        public void endDevice(Device device) {
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public void endRoom(Room room) {
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public void endHousehold(Household household) throws IOException {
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+            if (writer != null || out != null) {
+                flushBuffer();
+                if (writer != null) {
+                    writer.flush();
+                } else {
+                    out.flush();
                 }
-                deviceJson.put("runningLogs", logList);
-                deviceList.add(deviceJson);
+                jsonWriter.close();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (writer != null) {
+                jsonWriter.flushTo(writer);
+            } else if (out != null) {
+                jsonWriter.flushTo(out);
             }
-            roomJson.put("devices", deviceList);
-            roomList.add(roomJson);
         }
-        householdJson.put("rooms", roomList);
 
-        // 返回格式化的 JSON 字符串
-        return JSON.toJSONString(householdJson);
+        private void writeString(String name, String value) {
+            if (value == null) {
+                return;
+            }
+            jsonWriter.writeName(name);
+            jsonWriter.writeColon();
+            jsonWriter.writeString(value);
+        }
     }
 
 }
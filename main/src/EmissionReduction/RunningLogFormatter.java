@@ -2,6 +2,80 @@ package EmissionReduction;
 
 import UserAndHousehold.Household;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 运行日志格式化器接口
+ * 实现类以访问者的形式接收家庭结构及设备运行日志，并逐步写入输出目标，输出大小不受堆内存限制。
+ * 多个格式化器的访问者可交由 HouseholdExportEngine 在同一次遍历中同时导出。
+ */
 public interface RunningLogFormatter {
-    public String format(Household  household);
+    // 默认 createVisitor(OutputStream) 的缓冲：BufferedWriter 的 8192 个字符与 UTF-8 编码器的 8192 字节
+    int DEFAULT_VISITOR_BUFFER_BYTES = 8192 * 2 + 8192;
+
+    /**
+     * 创建将家庭写入字符输出目标的访问者，每个访问者只用于导出一个家庭
+     * @param out 字符输出目标，导出结束时刷新但不会关闭
+     * @return 导出访问者
+     */
+    public HouseholdExportVisitor createVisitor(Appendable out);
+
+    /**
+     * 创建将家庭以 UTF-8 编码写入输出流的访问者，每个访问者只用于导出一个家庭
+     * @param out 输出流，导出结束时刷新但不会关闭
+     * @return 导出访问者
+     */
+    public default HouseholdExportVisitor createVisitor(OutputStream out) {
+        return createVisitor(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 获取 createVisitor(OutputStream) 创建的访问者自身最多缓冲的字节数，不含输出流的缓冲区
+     * 用于 HouseholdExporter 估算每个导出任务占用的内存
+     * @return 缓冲字节数
+     */
+    public default int getBufferBytes() {
+        return DEFAULT_VISITOR_BUFFER_BYTES;
+    }
+
+    /**
+     * 将家庭信息格式化后写入字符输出目标
+     * @param household 需要格式化的家庭对象
+     * @param out 字符输出目标，方法返回后不会关闭
+     * @throws IOException 写入失败时抛出
+     */
+    public default void format(Household household, Appendable out) throws IOException {
+        HouseholdExportEngine.export(household, createVisitor(out));
+    }
+
+    /**
+     * 将家庭信息格式化后以 UTF-8 编码写入输出流
+     * @param household 需要格式化的家庭对象
+     * @param out 输出流，方法返回后不会关闭
+     * @throws IOException 写入失败时抛出
+     */
+    public default void format(Household household, OutputStream out) throws IOException {
+        HouseholdExportEngine.export(household, createVisitor(out));
+    }
+
+    /**
+     * 将家庭信息格式化为字符串，适用于数据量较小的场合
+     * @param household 需要格式化的家庭对象
+     * @return 格式化后的字符串
+     */
+    public default String format(Household household) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            format(household, builder);
+        } catch (IOException e) {
+            // StringBuilder 不会抛出 IO 异常
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
 }
@@ -0,0 +1,371 @@
+package EmissionReduction;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 运行日志存储类，按日志时间升序保存单个设备的全部运行日志
+ *
+ * 日志以列式结构保存：时间戳、事件ID、类型序号分别存放在基本类型数组中，备注保存字符串引用。
+ * 事件是取值有限的固定词汇（如 powerOn、powerOff），通过全局字典编码共享；
+ * 备注是自由文本，取值不受限制，若同样放入只增不减的全局字典会持续占用内存，因此不做编码。
+ * 每条日志约占用13字节加一个备注引用，远小于独立的 RunningLog、Date 与字符串对象。
+ * 通过 get 方法读取时临时构造 RunningLog 视图。
+ *
+ * 日志通常按时间顺序产生，此时追加操作为 O(1)；乱序到达的日志通过二分查找插入到正确位置。
+ * 由于始终保持有序，任意时间段 [startTime, endTime] 的查询只需两次二分查找即可定位，
+ * 复杂度为 O(log n + k)，k 为时间段内的日志数量。
+ * 对外表现为只读列表，只允许通过 add 方法追加日志。
+ *
+ * 存储同时维护开关机事件的能耗索引（见 EnergyIndex），按时间顺序追加的日志增量更新索引，
+ * 乱序插入时在同一写锁内整体重建索引（插入本身已需移动其后的全部数据），查询只需读锁。
+ *
+ * 存储是线程安全的：写入持有写锁，读取持有读锁，多个线程可以并行读取同一设备的日志。
+ * 逐条读取大量日志时（如导出），由调用方持有 readLock 后使用包内的无锁访问方法，避免逐条加锁。
+ */
+public class RunningLogStore extends AbstractList<RunningLog> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final RunningLog.Type[] TYPES = RunningLog.Type.values();
+
+    private static final String POWER_ON = "powerOn";
+    private static final String POWER_OFF = "powerOff";
+
+    private final StringDictionary dictionary = StringDictionary.shared();
+    private final int powerOnId = dictionary.idOf(POWER_ON);
+    private final int powerOffId = dictionary.idOf(POWER_OFF);
+    private final EnergyIndex energyIndex = new EnergyIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] times = new long[0];
+    private int[] eventIds = new int[0];
+    private byte[] types = new byte[0];
+    private String[] notes = new String[0];
+    private int size;
+
+    /**
+     * 按时间顺序添加一条运行日志，时间相同的日志保持添加顺序
+     * @param runningLog 运行日志
+     * @return 总是返回true
+     */
+    @Override
+    public boolean add(RunningLog runningLog) {
+        if (runningLog == null || runningLog.getDateTime() == null) {
+            throw new IllegalArgumentException("日志及日志时间不能为空");
+        }
+        long time = runningLog.getDateTime().getTime();
+        int eventId = dictionary.idOf(runningLog.getEvent());
+        lock.writeLock().lock();
+        try {
+            append(time, eventId, runningLog.getType(), runningLog.getNote());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    private void append(long time, int eventId, RunningLog.Type type, String note) {
+        ensureCapacity(size + 1);
+
+        // 绝大多数日志按时间顺序到达，直接追加到末尾；否则将插入位置之后的数据整体后移
+        int index = (size == 0 || times[size - 1] <= time) ? size : upperBoundUnlocked(time);
+        if (index < size) {
+            int moved = size - index;
+            System.arraycopy(times, index, times, index + 1, moved);
+            System.arraycopy(eventIds, index, eventIds, index + 1, moved);
+            System.arraycopy(types, index, types, index + 1, moved);
+            System.arraycopy(notes, index, notes, index + 1, moved);
+        }
+        times[index] = time;
+        eventIds[index] = eventId;
+        types[index] = type == null ? -1 : (byte) type.ordinal();
+        notes[index] = note;
+        size++;
+        modCount++;
+
+        // 追加到末尾时增量更新能耗索引，插入到中间时重建
+        if (index == size - 1) {
+            indexEvent(index);
+        } else {
+            energyIndex.clear();
+            for (int i = 0; i < size; i++) {
+                indexEvent(i);
+            }
+        }
+    }
+
+    /**
+     * 获取指定位置的运行日志视图
+     * @param index 位置
+     * @return 由列数据构造的运行日志对象
+     */
+    @Override
+    public RunningLog get(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            return new RunningLog(new Date(times[index]), event(index), type(index), note(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取日志数量
+     * @return 日志数量
+     */
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取指定位置日志的时间戳，不构造任何对象
+     * @param index 位置
+     * @return 时间戳（毫秒）
+     */
+    public long timeAt(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            return times[index];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取指定位置日志的事件
+     * @param index 位置
+     * @return 事件字符串
+     */
+    public String eventAt(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            return event(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取指定位置日志的类型
+     * @param index 位置
+     * @return 日志类型
+     */
+    public RunningLog.Type typeAt(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            return type(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取指定位置日志的备注
+     * @param index 位置
+     * @return 备注字符串
+     */
+    public String noteAt(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            return note(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取时间段 [startTime, endTime] 内的运行日志（包含两端）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 按时间升序排列的只读日志快照，时间段无效时返回空列表
+     */
+    public List<RunningLog> range(Date startTime, Date endTime) {
+        if (startTime == null || endTime == null || startTime.after(endTime)) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            // 在读锁内复制，返回的列表不受此后写入的影响
+            int from = lowerBoundUnlocked(startTime.getTime());
+            int to = upperBoundUnlocked(endTime.getTime());
+            List<RunningLog> logs = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                logs.add(new RunningLog(new Date(times[i]), event(i), type(i), note(i)));
+            }
+            return Collections.unmodifiableList(logs);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 计算时间段 [start, end] 内设备处于开机状态的总时长
+     * 开机区间由 powerOn/powerOff 日志确定，跨越时间段边界的区间按边界截断
+     *
+     * @param start 开始时间戳（毫秒）
+     * @param end 结束时间戳（毫秒）
+     * @param includeOpen 是否计入最后一次开机后尚未关机的区间（按持续到 end 计算）
+     * @return 开机时长（毫秒）
+     */
+    public long getPoweredOnMillis(long start, long end, boolean includeOpen) {
+        // 索引始终有效，只需读锁；调用方已持有 readLock 时可重入
+        lock.readLock().lock();
+        try {
+            return energyIndex.poweredOnMillis(start, end, includeOpen);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查找第一条时间不早于 time 的日志位置
+     * @param time 时间戳（毫秒）
+     * @return 日志位置，不存在时返回 size()
+     */
+    public int lowerBound(long time) {
+        lock.readLock().lock();
+        try {
+            return lowerBoundUnlocked(time);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查找第一条时间晚于 time 的日志位置
+     * @param time 时间戳（毫秒）
+     * @return 日志位置，不存在时返回 size()
+     */
+    public int upperBound(long time) {
+        lock.readLock().lock();
+        try {
+            return upperBoundUnlocked(time);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int lowerBoundUnlocked(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBoundUnlocked(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 释放数组中未使用的预留空间
+     */
+    public void trimToSize() {
+        lock.writeLock().lock();
+        try {
+            if (size < times.length) {
+                resize(size);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取读锁，持有期间日志不会被修改，可使用包内的无锁访问方法逐条读取
+     * 本类的查询方法只获取读锁、从不在持有读锁时申请写锁，持有读锁期间调用它们不会死锁；
+     * 持有读锁的线程不能调用 add 或 trimToSize
+     * @return 读锁
+     */
+    ReentrantReadWriteLock.ReadLock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * 以下方法不加锁，调用方需持有 readLock 且保证位置有效
+     */
+    int sizeUnlocked() {
+        return size;
+    }
+
+    long time(int index) {
+        return times[index];
+    }
+
+    String event(int index) {
+        return dictionary.valueOf(eventIds[index]);
+    }
+
+    RunningLog.Type type(int index) {
+        return types[index] < 0 ? null : TYPES[types[index]];
+    }
+
+    String note(int index) {
+        return notes[index];
+    }
+
+    private void indexEvent(int index) {
+        if (eventIds[index] == powerOnId) {
+            energyIndex.powerOn(times[index]);
+        } else if (eventIds[index] == powerOffId) {
+            energyIndex.powerOff(times[index]);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > times.length) {
+            resize(Math.max(capacity, Math.max(INITIAL_CAPACITY, times.length + (times.length >> 1))));
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] newTimes = new long[capacity];
+        int[] newEventIds = new int[capacity];
+        byte[] newTypes = new byte[capacity];
+        String[] newNotes = new String[capacity];
+        System.arraycopy(times, 0, newTimes, 0, size);
+        System.arraycopy(eventIds, 0, newEventIds, 0, size);
+        System.arraycopy(types, 0, newTypes, 0, size);
+        System.arraycopy(notes, 0, newNotes, 0, size);
+        times = newTimes;
+        eventIds = newEventIds;
+        types = newTypes;
+        notes = newNotes;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
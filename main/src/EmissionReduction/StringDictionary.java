@@ -0,0 +1,69 @@
+package EmissionReduction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字符串字典，将运行日志中反复出现的事件字符串编码为整数ID
+ * 所有设备共享同一个字典，相同内容的字符串只保存一份。字典只增不减，
+ * 只适用于取值有限的字符串；备注等自由文本不应放入字典，否则会随运行时间无限增长
+ */
+final class StringDictionary {
+    private static final StringDictionary SHARED = new StringDictionary();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // 按ID存放的字符串，扩容或写入后重新发布引用，保证其他线程读取到完整内容
+    private volatile String[] strings = new String[64];
+    private int size;
+
+    private StringDictionary() {
+    }
+
+    /**
+     * 获取全局共享的字典实例
+     * @return 字典实例
+     */
+    static StringDictionary shared() {
+        return SHARED;
+    }
+
+    /**
+     * 获取字符串对应的ID，首次出现时为其分配新ID
+     * @param value 字符串，可以为null
+     * @return 字符串ID，null 对应 -1
+     */
+    int idOf(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            String[] current = strings;
+            if (size == current.length) {
+                String[] grown = new String[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, size);
+                current = grown;
+            }
+            current[size] = value;
+            strings = current;
+            ids.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * 根据ID获取字符串
+     * @param id 字符串ID
+     * @return 字符串，ID为 -1 时返回null
+     */
+    String valueOf(int id) {
+        return id < 0 ? null : strings[id];
+    }
+}
@@ -4,17 +4,32 @@ import DeviceEquipment.Device;
 import UserAndHousehold.Household;
 import UserAndHousehold.Room;
 
-import java.text.SimpleDateFormat;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
-import java.io.StringWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.FilterWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 public class XmlRunningLogFormatter implements RunningLogFormatter {
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    // 各层级的换行与缩进字符串，层级最深为 runningLog 元素
+    private static final String[] INDENTS = new String[7];
+
+    static {
+        String indent = "\n";
+        for (int depth = 0; depth < INDENTS.length; depth++) {
+            INDENTS[depth] = indent;
+            indent += "  ";
+        }
+    }
+
     private static volatile XmlRunningLogFormatter instance;
+    // 是否缩进换行输出，关闭后输出紧凑格式以提高吞吐量
+    private volatile boolean prettyPrint = true;
 
     private XmlRunningLogFormatter() {
         instance = this;
@@ -31,6 +46,22 @@ public class XmlRunningLogFormatter implements RunningLogFormatter {
         return instance;
     }
 
+    /**
+     * 设置是否以缩进换行的格式输出
+     * @param prettyPrint true 表示缩进换行输出，false 表示紧凑输出
+     */
+    public void setPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    /**
+     * 获取是否以缩进换行的格式输出
+     * @return 是否缩进换行输出
+     */
+    public boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+
     /**
      * 将 Household 对象格式化为结构化的 XML 字符串。
      *
@@ -44,59 +75,8 @@ public class XmlRunningLogFormatter implements RunningLogFormatter {
     @Override
     public String format(Household household) {
         try {
-            // 创建Document对象
-            Document document = DocumentHelper.createDocument();
-
-            // 创建根元素，使用属性而不是子元素
-            Element root = document.addElement("household");
-            root.addAttribute("householdId", String.valueOf(household.getHouseholdId()));
-            root.addAttribute("address", household.getAddress());
-
-            // 添加房间列表
-            Element roomsElement = root.addElement("rooms");
-
-            // 日期格式化
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-            // 遍历房间并构建 XML 结构
-            for (Room room : household.getRooms()) {
-                Element roomElement = roomsElement.addElement("room");
-                roomElement.addAttribute("roomId", String.valueOf(room.getRoomId()));
-                roomElement.addAttribute("roomName", room.getName());
-
-                // 添加设备列表
-                Element devicesElement = roomElement.addElement("devices");
-
-                // 遍历设备并构建 XML 结构
-                for (Device device : room.getDevices()) {
-                    Element deviceElement = devicesElement.addElement("device");
-                    deviceElement.addAttribute("deviceId", String.valueOf(device.getDeviceId()));
-                    deviceElement.addAttribute("deviceName", device.getName());
-
-                    // 添加运行日志列表
-                    Element logsElement = deviceElement.addElement("runningLogs");
-
-                    // 遍历运行日志并构建 XML 结构
-                    for (RunningLog log : device.getRunningLogs()) {
-                        Element logElement = logsElement.addElement("runningLog");
-                        logElement.addAttribute("dateTime", dateFormat.format(log.getDateTime()));
-                        logElement.addAttribute("event", log.getEvent());
-                        logElement.addAttribute("type", log.getType().toString());
-                        logElement.addAttribute("note", log.getNote() != null ? log.getNote() : "");
-                    }
-                }
-            }
-
-            // 使用OutputFormat进行格式化，使XML更加美观
-            OutputFormat format = OutputFormat.createPrettyPrint();
-            format.setEncoding("UTF-8");
-
-            // 将Document对象转换为字符串
             StringWriter stringWriter = new StringWriter();
-            XMLWriter xmlWriter = new XMLWriter(stringWriter, format);
-            xmlWriter.write(document);
-            xmlWriter.close();
-
+            format(household, stringWriter);
             return stringWriter.toString();
         } catch (IOException e) {
             // 处理异常情况
@@ -104,4 +84,251 @@ public class XmlRunningLogFormatter implements RunningLogFormatter {
         }
     }
 
+    /**
+     * 创建以流式方式将 Household 对象写为 XML 的访问者
+     *
+     * 使用 StAX 逐个元素直接写出，不在内存中构造文档树，结构与属性同
+     * household/rooms/room/devices/device/runningLogs/runningLog 层级保持一致。
+     * 属性值中的控制字符与原先的 dom4j 输出一致，写为字符引用（如 &amp;#1;）。
+     *
+     * @param out 字符输出目标，导出结束时刷新但不会关闭
+     * @return 导出访问者
+     */
+    @Override
+    public HouseholdExportVisitor createVisitor(Appendable out) {
+        return new XmlVisitor(AppendableWriter.of(out), prettyPrint);
+    }
+
+    /**
+     * XML 导出访问者，所有数据均以属性形式表示，不使用子元素存储简单字段
+     */
+    private static class XmlVisitor implements HouseholdExportVisitor {
+        private final Writer writer;
+        private final boolean pretty;
+        // 日期格式化
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        // 复用的日期对象，避免每条日志构造一个 Date
+        private final Date date = new Date();
+        private XMLStreamWriter xmlWriter;
+        // 当前家庭、房间、设备的子元素数量，为 0 时列表元素写为空元素
+        private int roomCount;
+        private int deviceCount;
+        private int logCount;
+
+        private XmlVisitor(Writer writer, boolean pretty) {
+            this.writer = new ControlCharacterEscapingWriter(writer);
+            this.pretty = pretty;
+        }
+
+        @Override
+        public void startHousehold(Household household, int roomCount) throws IOException {
+            try {
+                this.roomCount = roomCount;
+                xmlWriter = OUTPUT_FACTORY.createXMLStreamWriter(writer);
+                xmlWriter.writeStartDocument("UTF-8", "1.0");
+                if (pretty) {
+                    xmlWriter.writeCharacters("\n");
+                }
+
+                // 根元素，使用属性而不是子元素
+                startElement("household", 0);
+                writeAttribute("householdId", String.valueOf(household.getHouseholdId()));
+                writeAttribute("address", household.getAddress());
+
+                // 房间列表
+                if (roomCount == 0) {
+                    emptyElement("rooms", 1);
+                } else {
+                    startElement("rooms", 1);
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void startRoom(Room room, int deviceCount) throws IOException {
+            try {
+                this.deviceCount = deviceCount;
+                startElement("room", 2);
+                writeAttribute("roomId", String.valueOf(room.getRoomId()));
+                writeAttribute("roomName", room.getName());
+
+                // 设备列表
+                if (deviceCount == 0) {
+                    emptyElement("devices", 3);
+                } else {
+                    startElement("devices", 3);
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void startDevice(Device device, int logCount) throws IOException {
+            try {
+                this.logCount = logCount;
+                startElement("device", 4);
+                writeAttribute("deviceId", String.valueOf(device.getDeviceId()));
+                writeAttribute("deviceName", device.getName());
+
+                // 运行日志列表
+                if (logCount == 0) {
+                    emptyElement("runningLogs", 5);
+                } else {
+                    startElement("runningLogs", 5);
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void visitLog(long time, String event, RunningLog.Type type, String note) throws IOException {
+            try {
+                date.setTime(time);
+                emptyElement("runningLog", 6);
+                writeAttribute("dateTime", dateFormat.format(date));
+                writeAttribute("event", event);
+                writeAttribute("type", String.valueOf(type));
+                writeAttribute("note", note != null ? note : "");
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void endDevice(Device device) throws IOException {
+            try {
+                if (logCount > 0) {
+                    endElement(5);
+                }
+                endElement(4);
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void endRoom(Room room) throws IOException {
+            try {
+                if (deviceCount > 0) {
+                    endElement(3);
+                }
+                endElement(2);
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void endHousehold(Household household) throws IOException {
+            try {
+                if (roomCount > 0) {
+                    endElement(1);
+                }
+                endElement(0);
+                if (pretty) {
+                    xmlWriter.writeCharacters("\n");
+                }
+                xmlWriter.writeEndDocument();
+                xmlWriter.flush();
+                xmlWriter.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 换行缩进后写出开始标签
+         */
+        private void startElement(String name, int depth) throws XMLStreamException {
+            indent(depth);
+            xmlWriter.writeStartElement(name);
+        }
+
+        /**
+         * 换行缩进后写出空元素标签，其后可继续写属性
+         */
+        private void emptyElement(String name, int depth) throws XMLStreamException {
+            indent(depth);
+            xmlWriter.writeEmptyElement(name);
+        }
+
+        /**
+         * 换行缩进后写出结束标签
+         */
+        private void endElement(int depth) throws XMLStreamException {
+            indent(depth);
+            xmlWriter.writeEndElement();
+        }
+
+        /**
+         * 写出属性，属性值为 null 时省略该属性
+         */
+        private void writeAttribute(String name, String value) throws XMLStreamException {
+            if (value != null) {
+                xmlWriter.writeAttribute(name, value);
+            }
+        }
+
+        private void indent(int depth) throws XMLStreamException {
+            if (pretty) {
+                xmlWriter.writeCharacters(INDENTS[depth]);
+            }
+        }
+    }
+
+    /**
+     * 将除制表、换行、回车以外的控制字符（0x00-0x1F）写为字符引用 &amp;#N;
+     * StAX 写出属性值时原样输出这些字符，而原先的 dom4j 输出将其写为字符引用；
+     * 本类只处理数据中出现的控制字符，标签与缩进中不含此类字符，因此不影响其他内容
+     */
+    private static final class ControlCharacterEscapingWriter extends FilterWriter {
+        private ControlCharacterEscapingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (needsEscape((char) c)) {
+                out.write("&#" + c + ";");
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (needsEscape(buffer[i])) {
+                    out.write(buffer, start, i - start);
+                    out.write("&#" + (int) buffer[i] + ";");
+                    start = i + 1;
+                }
+            }
+            out.write(buffer, start, end - start);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (needsEscape(text.charAt(i))) {
+                    out.write(text, start, i - start);
+                    out.write("&#" + (int) text.charAt(i) + ";");
+                    start = i + 1;
+                }
+            }
+            out.write(text, start, end - start);
+        }
+
+        private static boolean needsEscape(char c) {
+            return c < 0x20 && c != '\t' && c != '\n' && c != '\r';
+        }
+    }
 }
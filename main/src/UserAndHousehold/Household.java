@@ -1,7 +1,14 @@
 package UserAndHousehold;
 
 import AutomatedWorkflow.AutomationScene;
-import Common.HomeSphereSystem;
+import AutomatedWorkflow.RuleIndex;
+import AutomatedWorkflow.TriggerScheduler;
+import Common.AuthorizationIndex;
+import Common.DeviceIndex;
+import Common.DeviceLocation;
+import Common.IdAllocator;
+import Common.SequenceIdAllocator;
+import Common.SnapshotMap;
 import DeviceEquipment.Device;
 import NormalException.CannotDoException;
 import NormalException.CannotFindException;
@@ -9,19 +16,38 @@ import NormalException.NotAdminException;
 import NormalException.RepeatedException;
 
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * 家庭类，表示一个组织，包含多个房间和用户
+ *
+ * 每个家庭持有一把读写锁，保护家庭的成员、房间、房间内的设备与自动化场景：
+ * 查询持有读锁，可以并行执行；修改持有写锁。不同家庭的操作使用不同的锁，互不阻塞。
  */
 public class Household {
     private int householdId;
     private String address;
-    // 使用 LinkedHashMap 存储房间，以房间ID为键，房间对象为值
-    private Map<Integer, Room> rooms = new LinkedHashMap<>();
+    // 使用 LinkedHashMap 存储房间，以房间ID为键，房间对象为值；列表查询返回共享的只读快照
+    private SnapshotMap<Integer, Room> rooms = new SnapshotMap<>(new LinkedHashMap<>());
     // 使用 LinkedHashMap 存储成员资格，以成员资格ID为键，成员资格对象为值
-    private Map<Integer, Membership> memberships = new LinkedHashMap<>();
+    private SnapshotMap<Integer, Membership> memberships = new SnapshotMap<>(new LinkedHashMap<>());
     // 使用 LinkedHashMap 存储自动化场景，以场景ID为键，自动化场景对象为值
-    private Map<Integer, AutomationScene> autoScenes = new LinkedHashMap<>();
+    private SnapshotMap<Integer, AutomationScene> autoScenes = new SnapshotMap<>(new LinkedHashMap<>());
+    // 设备ID到所在房间的索引，由房间的设备增删同步维护
+    private Map<Integer, Room> deviceRooms = new HashMap<>();
+    // 家庭加入系统后关联的全局设备索引，未加入系统时为null
+    private DeviceIndex deviceIndex;
+    // 家庭加入系统后关联的授权索引，未加入系统时为null
+    private volatile AuthorizationIndex authorizationIndex;
+    // 自动化场景ID分配器，场景ID在家庭范围内唯一，删除场景后不会重复分配
+    private final IdAllocator autoSceneIds = new SequenceIdAllocator();
+    // 按 (设备ID, 属性) 索引全部场景的设备状态触发器，设备属性变化时只判断受影响的触发器
+    private final RuleIndex ruleIndex = new RuleIndex(this::findDeviceById);
+    // 全部设备的只读快照，房间或设备增删时置空，下次查询时重新构造
+    private volatile List<Device> allDevices;
+    // 保护本家庭全部可变状态的读写锁
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     /**
      * 创建一个新的家庭对象
@@ -52,6 +78,7 @@ public class Household {
      * @throws IllegalArgumentException 当参数无效时抛出异常
      */
     public void addUser(User user, String role) {
+        lock.writeLock().lock();
         try{
             if (user == null) {
                 throw new IllegalArgumentException("用户对象不能为空");
@@ -60,12 +87,11 @@ public class Household {
                 throw new IllegalArgumentException("角色不能为空");
             }
 
-            for(Membership membership : memberships.values()){
-                if(membership.getUser().equals(user)){
-                    // 如果用户已存在，更新其角色
-                    membership.setRole(role);
-                    return;
-                }
+            Membership existing = memberships.get(user.getUserId());
+            if(existing != null){
+                // 如果用户已存在，更新其角色
+                existing.setRole(role);
+                return;
             }
 
             // 创建用户加入组织的会员关系
@@ -73,10 +99,16 @@ public class Household {
             Membership membership = new Membership(joinDate, role, user, this);
             memberships.put(membership.getUser().getUserId(), membership);
             user.addMembership(membership);
+            if (authorizationIndex != null) {
+                authorizationIndex.grant(membership);
+            }
         }
         catch (IllegalArgumentException e) {
             System.out.println(e.getMessage());
         }
+        finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -89,19 +121,34 @@ public class Household {
         // 默认超管id为0，直接返回表示具有管理员权限
         if(userId == 0) return;
 
-        // 遍历所有成员关系，查找匹配的用户
-        for(Membership membership : memberships.values()){
-            if(membership.getUser().getUserId() == userId){
-                // 检查用户角色是否为管理员角色
-                if(membership.getRole().equals(HomeSphereSystem.MANAGE_USER_ROLE)){
-                    return;
-                }
-                else{
-                    throw new NotAdminException("非管理员用户");
-                }
-            }
+        // 通过角色位集合一次判断，不遍历成员关系
+        int roles = getRoles(userId);
+        if(roles == 0){
+            throw new CannotFindException("用户不存在");
+        }
+        if((roles & AuthorizationIndex.ADMIN) == 0){
+            throw new NotAdminException("非管理员用户");
+        }
+    }
+
+    /**
+     * 获取用户在本家庭中的角色位集合
+     * 家庭加入系统后直接查询授权索引；未加入系统时按用户ID查找成员资格
+     * @param userId 用户ID
+     * @return 角色位集合（见 AuthorizationIndex），用户不是家庭成员时返回0
+     */
+    public int getRoles(int userId) {
+        AuthorizationIndex index = authorizationIndex;
+        if (index != null) {
+            return index.roles(userId, householdId);
+        }
+        lock.readLock().lock();
+        try {
+            Membership membership = memberships.get(userId);
+            return membership == null ? 0 : AuthorizationIndex.bitsOf(membership.getRole());
+        } finally {
+            lock.readLock().unlock();
         }
-        throw new CannotFindException("用户不存在");
     }
 
     /**
@@ -109,21 +156,21 @@ public class Household {
      * @param user 需要移除的用户对象
      */
     public void removeUser(User  user){
+        lock.writeLock().lock();
         try{
             if(user == null){
                 throw new IllegalArgumentException("用户对象不能为空");
             }
 
-            // 遍历所有成员资格，查找并移除与指定用户相关的成员资格
-            Iterator<Membership> iterator = memberships.values().iterator();
-            while (iterator.hasNext()) {
-                Membership membership = iterator.next();
-                if (membership.getUser().equals(user)) {
-                    iterator.remove();
-                    user.removeMembership(membership);
-                    System.out.println("用户已移除");
-                    return;
+            // 成员资格以用户ID为键，直接移除与指定用户相关的成员资格
+            Membership membership = memberships.remove(user.getUserId());
+            if (membership != null) {
+                user.removeMembership(membership);
+                if (authorizationIndex != null) {
+                    authorizationIndex.revoke(user.getUserId(), householdId);
                 }
+                System.out.println("用户已移除");
+                return;
             }
 
             // 如果用户不存在，则返回
@@ -134,15 +181,23 @@ public class Household {
         catch (Exception e) {
             System.out.println(e.getMessage());
         }
+        finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * 获取当前组织中的所有成员资格
-     * @return 成员资格列表
+     * @return 成员资格的只读快照，成员变更前多次调用返回同一列表
      */
     public List<Membership> getMemberships(){
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(memberships.values());
+        lock.readLock().lock();
+        try {
+            // 将Map中的值转换为List返回
+            return memberships.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -150,6 +205,7 @@ public class Household {
      * @param room 要添加的房间对象
      */
     public void addRoom(Room room){
+        lock.writeLock().lock();
         try{
             if(room == null){
                 throw new IllegalArgumentException("房间对象不能为空");
@@ -158,12 +214,47 @@ public class Household {
             if(rooms.containsKey(room.getRoomId())){
                 throw new RepeatedException("房间已存在");
             }
-
-            rooms.put(room.getRoomId(), room);
+            // 加入家庭前房间由自身的锁保护，持有该锁直到房间改由家庭的锁保护
+            room.attachTo(this);
         }
         catch (Exception e) {
             System.out.println(e.getMessage());
         }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 房间加入家庭时由 Room.attachTo 在持有房间自身写锁时调用，校验并登记房间中的设备
+     * @param room 加入的房间
+     * @throws RepeatedException 当房间中的设备ID与已有设备重复时抛出，此时不做任何修改
+     */
+    void roomAttached(Room room) throws RepeatedException {
+        // 房间中的设备ID不能与已有设备重复
+        for(Device device : room.getDevicesView()){
+            checkDeviceId(room, device);
+        }
+
+        List<Device> indexed = new ArrayList<>();
+        try{
+            for(Device device : room.getDevicesView()){
+                indexDevice(room, device);
+                indexed.add(device);
+            }
+        }
+        catch (RepeatedException e) {
+            // 校验之后设备ID被其他家庭并发占用，撤销已登记的设备
+            for(Device device : indexed){
+                unindexDevice(device.getDeviceId());
+            }
+            throw e;
+        }
+        rooms.put(room.getRoomId(), room);
+        allDevices = null;
+        for(Device device : indexed){
+            ruleIndex.deviceAdded(device);
+        }
     }
 
         /**
@@ -171,32 +262,50 @@ public class Household {
      * @param roomId 要移除的房间的ID
      */
     public void removeRoom(int roomId){
+        lock.writeLock().lock();
         try{
-            // 遍历所有房间，查找并移除指定ID的房间
-            Iterator<Room> iterator = rooms.values().iterator();
-            while (iterator.hasNext()) {
-                Room room = iterator.next();
-                if(room.getRoomId() == roomId){
-                    iterator.remove();
-                    System.out.println("房间已移除");
-                    return;
+            // 房间以房间ID为键，直接移除指定ID的房间
+            Room room = rooms.remove(roomId);
+            if(room != null){
+                for(Device device : room.getDevicesView()){
+                    unindexDevice(device.getDeviceId());
+                    ruleIndex.deviceRemoved(device.getDeviceId());
                 }
+                room.setHousehold(null);
+                allDevices = null;
+                System.out.println("房间已移除");
+                return;
             }
             throw new CannotDoException("房间不存在");
         }
         catch (Exception e) {
             System.out.println(e.getMessage());
         }
-
+        finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * 获取房间列表
-     * @return 房间列表
+     * @return 房间的只读快照，房间增删前多次调用返回同一列表
      */
     public List<Room> getRooms(){
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(rooms.values());
+        lock.readLock().lock();
+        try {
+            // 将Map中的值转换为List返回
+            return rooms.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取房间的只读视图，与 getRooms 返回同一快照
+     * @return 按添加顺序排列的房间集合
+     */
+    public Collection<Room> getRoomsView(){
+        return rooms.snapshot();
     }
 
     /**
@@ -205,7 +314,12 @@ public class Household {
      * @return 找到的房间对象，如果没有找到，则返回null
      */
     public Room findRoomById(int roomId){
-        return rooms.get(roomId);
+        lock.readLock().lock();
+        try {
+            return rooms.get(roomId);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -214,6 +328,7 @@ public class Household {
      * @param autoScene 要添加的自动化场景对象
      */
     public void addAutoScene(AutomationScene autoScene){
+        lock.writeLock().lock();
         try{
             // 验证输入参数是否为空
             if(autoScene == null){
@@ -221,18 +336,37 @@ public class Household {
             }
 
             // 检查是否存在重复的自动化场景
-            for(AutomationScene theAutoScene : autoScenes.values()){
+            for(AutomationScene theAutoScene : autoScenes.snapshot()){
                 if(theAutoScene.equals(autoScene)){
                     throw new RepeatedException("自动化场景已存在");
                 }
             }
 
-            // 将自动化场景添加到映射中
-            autoScenes.put(autoScene.getSceneId(), autoScene);
+            // 将自动化场景添加到映射中，并登记其ID
+            AutomationScene previous = autoScenes.put(autoScene.getSceneId(), autoScene);
+            // 同ID的旧场景被替换，取消其规则与定时登记，避免继续观察设备或定时执行
+            if (previous != null && previous != autoScene) {
+                ruleIndex.unregister(previous);
+                TriggerScheduler.getInstance().unregister(previous);
+            }
+            autoSceneIds.observe(autoScene.getSceneId());
+            ruleIndex.register(autoScene);
+            TriggerScheduler.getInstance().register(autoScene);
         }
         catch (Exception e) {
             System.out.println(e.getMessage());
         }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 分配一个新的自动化场景ID
+     * @return 大于本家庭所有已有场景ID的新ID
+     */
+    public int nextAutoSceneId(){
+        return autoSceneIds.next();
     }
 
     /**
@@ -240,32 +374,38 @@ public class Household {
      * @param autoSceneId 要移除的自动场景的ID
      */
     public void removeAutoScene(int autoSceneId){
+        lock.writeLock().lock();
         try{
-            // 遍历自动场景集合，查找并移除指定ID的场景
-            Iterator<AutomationScene> iterator = autoScenes.values().iterator();
-            while (iterator.hasNext()) {
-                AutomationScene autoScene = iterator.next();
-                if(autoScene.getSceneId() == autoSceneId){
-                    iterator.remove();
-                    System.out.println("自动化场景已移除");
-                    return;
-                }
+            // 场景以场景ID为键，直接移除指定ID的场景
+            AutomationScene removed = autoScenes.remove(autoSceneId);
+            if(removed != null){
+                ruleIndex.unregister(removed);
+                TriggerScheduler.getInstance().unregister(removed);
+                System.out.println("自动化场景已移除");
+                return;
             }
             throw new CannotDoException("自动化场景不存在");
         }
         catch (Exception e) {
             System.out.println(e.getMessage());
         }
-
+        finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * 获取自动化场景列表
-     * @return 自动化场景列表
+     * @return 自动化场景的只读快照，场景增删前多次调用返回同一列表
      */
     public List<AutomationScene> getAutoScenes(){
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(autoScenes.values());
+        lock.readLock().lock();
+        try {
+            // 将Map中的值转换为List返回
+            return autoScenes.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -274,11 +414,11 @@ public class Household {
      * @return 返回找到的自动化场景对象，如果未找到则返回null
      */
     public AutomationScene findAutoSceneById(int autoSceneId) {
+        lock.readLock().lock();
         try{
-            for (AutomationScene autoScene : autoScenes.values()) {
-                if (autoScene.getSceneId() == autoSceneId) {
-                    return autoScene;
-                }
+            AutomationScene autoScene = autoScenes.get(autoSceneId);
+            if (autoScene != null) {
+                return autoScene;
             }
             throw new CannotFindException("自动化场景不存在");
         }
@@ -286,20 +426,43 @@ public class Household {
             System.out.println(e.getMessage());
             return null;
         }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取本家庭的规则索引
+     * 场景加入家庭时自动登记，修改已加入家庭的场景的触发器后需调用 register 重新登记，
+     * 时间触发器需同时在 TriggerScheduler 的默认实例上重新登记
+     * @return 规则索引
+     */
+    public RuleIndex getRuleIndex() {
+        return ruleIndex;
     }
 
     /**
      * 获取所有设备列表
      *
-     * @return 包含所有房间中设备的列表
+     * @return 包含所有房间中设备的只读快照，房间或设备增删前多次调用返回同一列表
      */
     public List<Device> listAllDevices(){
-        List< Device> devices = new ArrayList<>();
-        // 遍历所有房间，将房间中的设备添加到设备列表中
-        for(Room room : rooms.values()){
-            devices.addAll(room.getDevices());
+        lock.readLock().lock();
+        try {
+            List<Device> devices = allDevices;
+            if (devices == null) {
+                // 遍历所有房间，将房间中的设备添加到设备列表中；修改持有写锁，构造期间不会被置空
+                List<Device> collected = new ArrayList<>();
+                for(Room room : rooms.snapshot()){
+                    collected.addAll(room.getDevicesView());
+                }
+                devices = Collections.unmodifiableList(collected);
+                allDevices = devices;
+            }
+            return devices;
+        } finally {
+            lock.readLock().unlock();
         }
-        return devices;
     }
 
     /**
@@ -308,15 +471,197 @@ public class Household {
      * @return 找到的设备对象，如果未找到则返回null
      */
     public Device findDeviceById(int deviceId){
-        // 遍历所有房间查找指定ID的设备
-        for(Room room : rooms.values()){
-            for(Device device : room.getDevices()){
-                if(device.getDeviceId() == deviceId){
-                    return device;
+        lock.readLock().lock();
+        try {
+            // 通过设备索引定位所在房间，再在房间中直接查找
+            Room room = deviceRooms.get(deviceId);
+            return room == null ? null : room.findDeviceById(deviceId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 根据设备ID查找设备所在的房间
+     * @param deviceId 设备ID
+     * @return 设备所在的房间，如果未找到则返回null
+     */
+    public Room findRoomByDeviceId(int deviceId){
+        lock.readLock().lock();
+        try {
+            return deviceRooms.get(deviceId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 关联全局设备索引并登记家庭中的全部设备，此后设备的增删同步到该索引
+     * @param deviceIndex 全局设备索引
+     * @throws RepeatedException 当家庭中的设备ID已被其他家庭的设备占用时抛出，此时不做任何修改
+     */
+    public void attachDeviceIndex(DeviceIndex deviceIndex) throws RepeatedException {
+        lock.writeLock().lock();
+        try {
+            if (deviceIndex == null) {
+                throw new IllegalArgumentException("设备索引不能为空");
+            }
+            for (Room room : rooms.snapshot()) {
+                for (Device device : room.getDevicesView()) {
+                    DeviceLocation location = deviceIndex.locate(device.getDeviceId());
+                    if (location != null && location.getDevice() != device) {
+                        throw new RepeatedException("设备ID已被占用：" + device.getDeviceId());
+                    }
+                }
+            }
+            detachDeviceIndex();
+            List<Integer> indexed = new ArrayList<>();
+            try {
+                for (Room room : rooms.snapshot()) {
+                    for (Device device : room.getDevicesView()) {
+                        deviceIndex.put(device, room, this);
+                        indexed.add(device.getDeviceId());
+                    }
+                }
+            } catch (RepeatedException e) {
+                // 校验之后设备ID被其他家庭并发占用，撤销已登记的设备
+                for (Integer deviceId : indexed) {
+                    deviceIndex.remove(deviceId);
+                }
+                throw e;
+            }
+            this.deviceIndex = deviceIndex;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从全局设备索引中移除家庭的全部设备，并解除关联
+     */
+    public void detachDeviceIndex() {
+        lock.writeLock().lock();
+        try {
+            if (deviceIndex != null) {
+                for (Integer deviceId : deviceRooms.keySet()) {
+                    deviceIndex.remove(deviceId);
+                }
+                deviceIndex = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取家庭的读写锁，需要在多次调用之间保持一致视图时（如遍历房间视图）由调用方持有读锁
+     * @return 家庭的读写锁
+     */
+    public ReadWriteLock getLock(){
+        return lock;
+    }
+
+    /**
+     * 关联授权索引并登记家庭的全部成员，此后成员的增删与角色变更同步到该索引
+     * @param authorizationIndex 授权索引
+     */
+    public void attachAuthorizationIndex(AuthorizationIndex authorizationIndex) {
+        if (authorizationIndex == null) {
+            throw new IllegalArgumentException("授权索引不能为空");
+        }
+        lock.writeLock().lock();
+        try {
+            detachAuthorizationIndex();
+            for (Membership membership : memberships.snapshot()) {
+                authorizationIndex.grant(membership);
+            }
+            this.authorizationIndex = authorizationIndex;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从授权索引中移除家庭的全部成员，并解除关联
+     */
+    public void detachAuthorizationIndex() {
+        lock.writeLock().lock();
+        try {
+            if (authorizationIndex != null) {
+                for (Membership membership : memberships.snapshot()) {
+                    authorizationIndex.revoke(membership.getUser().getUserId(), householdId);
                 }
+                authorizationIndex = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 成员角色变更后由 Membership.setRole 调用，同步更新授权索引
+     * @param membership 角色变更的成员资格
+     */
+    void roleChanged(Membership membership) {
+        lock.writeLock().lock();
+        try {
+            if (authorizationIndex != null && memberships.get(membership.getUser().getUserId()) == membership) {
+                authorizationIndex.grant(membership);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 房间添加设备前调用，调用方已持有家庭写锁，校验设备ID并登记设备所在房间
+     * @param room 房间
+     * @param device 新添加的设备
+     * @throws RepeatedException 当设备ID已被其他设备占用时抛出
+     */
+    void deviceAdded(Room room, Device device) throws RepeatedException {
+        checkDeviceId(room, device);
+        indexDevice(room, device);
+        allDevices = null;
+        ruleIndex.deviceAdded(device);
+    }
+
+    /**
+     * 房间移除设备后调用，调用方已持有家庭写锁，移除设备的登记
+     * @param deviceId 被移除的设备ID
+     */
+    void deviceRemoved(int deviceId) {
+        unindexDevice(deviceId);
+        allDevices = null;
+        ruleIndex.deviceRemoved(deviceId);
+    }
+
+    private void checkDeviceId(Room room, Device device) throws RepeatedException {
+        Room owner = deviceRooms.get(device.getDeviceId());
+        if (owner != null && owner != room) {
+            throw new RepeatedException("设备ID已被占用：" + device.getDeviceId());
+        }
+        if (deviceIndex != null) {
+            DeviceLocation location = deviceIndex.locate(device.getDeviceId());
+            if (location != null && location.getDevice() != device) {
+                throw new RepeatedException("设备ID已被占用：" + device.getDeviceId());
             }
         }
-        return null;
+    }
+
+    private void indexDevice(Room room, Device device) throws RepeatedException {
+        // 先在全局索引中原子地占用设备ID，其他家庭已占用时不修改本家庭的索引
+        if (deviceIndex != null) {
+            deviceIndex.put(device, room, this);
+        }
+        deviceRooms.put(device.getDeviceId(), room);
+    }
+
+    private void unindexDevice(int deviceId) {
+        deviceRooms.remove(deviceId);
+        if (deviceIndex != null) {
+            deviceIndex.remove(deviceId);
+        }
     }
 
     /**
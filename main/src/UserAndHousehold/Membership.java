@@ -9,7 +9,7 @@ import java.util.Objects;
  */
 public class Membership {
     private Date joinDate;
-    private String role;
+    private volatile String role;
     private User user;
     private Household household;
 
@@ -66,10 +66,13 @@ public class Membership {
     }
 
     /**
-     * 设置角色
+     * 设置角色，同步更新所属家庭的授权索引
      */
     public void setRole(String role) {
         this.role = role;
+        if (household != null) {
+            household.roleChanged(this);
+        }
     }
 
     /**
@@ -1,22 +1,32 @@
 package UserAndHousehold;
 
+import Common.SnapshotMap;
 import DeviceEquipment.Device;
 import NormalException.RepeatedException;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Room 类表示一个房间，包含房间ID、名称和面积等信息，以及房间内的设备列表
+ *
+ * 加入家庭后，房间的设备由所属家庭的读写锁保护；未加入家庭时使用房间自身的读写锁。
+ * 获取锁后会确认房间的归属没有改变，否则换用新归属的锁重新获取。
  */
 public class Room {
     private int roomId;
     private String name;
     private double area;
-    // 使用 LinkedHashMap 存储设备，以设备ID为键，设备对象为值
-    private Map<Integer, Device> devices = new LinkedHashMap<>();
+    // 使用 LinkedHashMap 存储设备，以设备ID为键，设备对象为值；列表查询返回共享的只读快照
+    private SnapshotMap<Integer, Device> devices = new SnapshotMap<>(new LinkedHashMap<>());
+    // 房间所属家庭，未加入家庭时为null
+    private volatile Household household;
+    // 未加入家庭时保护设备列表的读写锁
+    private final ReentrantReadWriteLock ownLock = new ReentrantReadWriteLock();
 
     /**
      * 创建一个新的房间对象
@@ -35,6 +45,7 @@ public class Room {
      * @param device 要添加的设备对象
      */
     public void addDevice(Device device){
+        Lock lock = acquireWriteLock();
         try{
             if (device == null) {
                 throw new IllegalArgumentException("设备不能为空");
@@ -42,6 +53,10 @@ public class Room {
             if (devices.containsKey(device.getDeviceId())) {
                 throw new RepeatedException("设备已存在");
             }
+            // 同步登记到所属家庭的设备索引，设备ID被占用时抛出异常
+            if (household != null) {
+                household.deviceAdded(this, device);
+            }
 
             // 将设备添加到设备映射中，以设备ID为键
             devices.put(device.getDeviceId(), device);
@@ -49,6 +64,9 @@ public class Room {
         catch (Exception e){
             System.out.println(e.getMessage());
         }
+        finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -56,10 +74,14 @@ public class Room {
      * @param deviceId 要删除的设备ID
      */
     public void removeDevice(int deviceId){
+        Lock lock = acquireWriteLock();
         try{
             if (devices.containsKey(deviceId)) {
                 System.out.println("设备已删除");
                 devices.remove(deviceId);
+                if (household != null) {
+                    household.deviceRemoved(deviceId);
+                }
                 return;
             }
             throw new IllegalArgumentException("设备不存在");
@@ -67,7 +89,9 @@ public class Room {
         catch (Exception e){
             System.out.println(e.getMessage());
         }
-
+        finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -76,18 +100,101 @@ public class Room {
      * @return 找到的设备对象，如果未找到则返回null
      */
     public Device findDeviceById(int deviceId){
-        // 直接通过键查找设备
-        return devices.get(deviceId);
+        Lock lock = acquireReadLock();
+        try {
+            // 直接通过键查找设备
+            return devices.get(deviceId);
+        } finally {
+            lock.unlock();
+        }
     }
 
 
     /**
      * 获取房间内的所有设备列表
-     * @return 设备列表
+     * @return 设备的只读快照，设备增删前多次调用返回同一列表
      */
     public List<Device> getDevices(){
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(devices.values());
+        Lock lock = acquireReadLock();
+        try {
+            return devices.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取设备的只读视图，与 getDevices 返回同一快照
+     * @return 按添加顺序排列的设备集合
+     */
+    public Collection<Device> getDevicesView(){
+        return getDevices();
+    }
+
+    /**
+     * 获取房间所属家庭
+     * @return 所属家庭，未加入家庭时返回null
+     */
+    public Household getHousehold(){
+        return household;
+    }
+
+    /**
+     * 设置房间所属家庭，由 Household.removeRoom 在持有家庭写锁时调用
+     * @param household 所属家庭
+     */
+    void setHousehold(Household household){
+        this.household = household;
+    }
+
+    /**
+     * 将房间加入家庭，由 Household.addRoom 在持有家庭写锁时调用
+     * 持有房间自身的写锁完成设备登记，期间其他线程不能修改房间的设备
+     * @param household 加入的家庭
+     * @throws RepeatedException 当房间已加入其他家庭或设备ID重复时抛出
+     */
+    void attachTo(Household household) throws RepeatedException {
+        ownLock.writeLock().lock();
+        try {
+            if (this.household != null) {
+                throw new RepeatedException("房间已加入其他家庭");
+            }
+            household.roomAttached(this);
+            this.household = household;
+        } finally {
+            ownLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取当前保护房间设备的读写锁
+     */
+    private ReadWriteLock lock(){
+        Household owner = household;
+        return owner == null ? ownLock : owner.getLock();
+    }
+
+    private Lock acquireWriteLock(){
+        while (true) {
+            ReadWriteLock current = lock();
+            current.writeLock().lock();
+            // 等待期间房间可能加入或移出家庭，此时换用新的锁
+            if (current == lock()) {
+                return current.writeLock();
+            }
+            current.writeLock().unlock();
+        }
+    }
+
+    private Lock acquireReadLock(){
+        while (true) {
+            ReadWriteLock current = lock();
+            current.readLock().lock();
+            if (current == lock()) {
+                return current.readLock();
+            }
+            current.readLock().unlock();
+        }
     }
 
     /**
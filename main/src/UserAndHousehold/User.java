@@ -1,11 +1,11 @@
 package UserAndHousehold;
 
+import Common.SnapshotMap;
 import NormalException.RepeatedException;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 用户类，表示一个组织中的用户
@@ -17,15 +17,16 @@ public class User {
     private String userName;
     private String phoneNumber;
     // 使用 LinkedHashMap 存储成员资格，以成员资格ID为键，成员资格对象为值
-    public Map<Integer, Membership> memberships = new LinkedHashMap<>();
+    // 用户可同时被多个家庭修改成员资格，各家庭持有不同的锁，因此映射自身需要同步
+    // 列表查询返回共享的只读快照，快照通过同步映射的 toArray 在映射的锁内复制
+    public SnapshotMap<Integer, Membership> memberships = new SnapshotMap<>(Collections.synchronizedMap(new LinkedHashMap<>()));
 
     /**
      * 获取用户加入组织的所有成员资格
-     * @return 用户加入组织的所有成员资格列表
+     * @return 用户加入组织的所有成员资格的只读快照，成员资格变更前多次调用返回同一列表
      */
     public List<Membership> getMemberships() {
-        // 将Map中的值转换为List返回
-        return new ArrayList<>(memberships.values());
+        return memberships.snapshot();
     }
 
     /**
@@ -112,13 +113,10 @@ public class User {
             if (membership == null) {
                 throw new IllegalArgumentException("成员资格对象不能为空");
             }
-            // 如果已存在该成员资格，则不添加
-            if (memberships.containsKey(membership.getUser().getUserId())) {
+            // 如果已存在该成员资格，则不添加；以成员资格ID为键原子地添加到映射中
+            if (memberships.putIfAbsent(membership.getUser().getUserId(), membership) != null) {
                 throw new RepeatedException("该用户已加入组织");
             }
-
-            // 将成员资格添加到映射中，以成员资格ID为键
-            memberships.put(membership.getUser().getUserId(), membership);
         }
         catch (Exception e) {
             System.out.println(e.getMessage());